@@ -4,12 +4,13 @@ plugins {
     id("java")
     id("maven-publish")
     id("io.papermc.paperweight.userdev") version "2.0.0-beta.14" // the latest version can be found on the Gradle Plugin Portal
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 // The Minecraft version we're currently building for
 val minecraftVersion = "1.21.4"
 // Version of CoreApi
-val projectVersion = "1.1.0"
+val projectVersion = "1.2.0"
 
 java {
     toolchain.languageVersion = JavaLanguageVersion.of(21)
@@ -27,6 +28,19 @@ dependencies {
     paperweight.paperDevBundle("${minecraftVersion}-R0.1-SNAPSHOT")
 }
 
+// Benchmarks run against the server classes, which are otherwise compile only
+configurations.named("jmhImplementation") {
+    extendsFrom(configurations.compileOnly.get())
+}
+
+jmh {
+    jmhVersion = "1.37"
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    // Keep results per version, so releases can be compared
+    resultsFile = layout.buildDirectory.file("results/jmh/results-$projectVersion-$minecraftVersion.json")
+}
+
 tasks {
     processResources {
         expand("version" to projectVersion)
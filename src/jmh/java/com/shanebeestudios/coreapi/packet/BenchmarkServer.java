@@ -0,0 +1,84 @@
+package com.shanebeestudios.coreapi.packet;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.RegisteredListener;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.logging.Logger;
+
+/**
+ * Bare minimum of a Bukkit server for benchmarks
+ * <p>Events are dispatched straight to their registered listeners, the same way the plugin manager would.</p>
+ */
+final class BenchmarkServer {
+
+    static final Logger LOGGER = Logger.getLogger("CoreApiBenchmark");
+    static final Plugin PLUGIN = proxy(Plugin.class, "getName", "CoreApiBenchmark");
+    static final Player PLAYER = proxy(Player.class, "getName", "BenchmarkPlayer");
+    private static boolean INSTALLED = false;
+
+    private BenchmarkServer() {
+    }
+
+    /**
+     * Install the server in {@link Bukkit}, without going through its version logging
+     */
+    static synchronized void install() throws ReflectiveOperationException {
+        if (INSTALLED) return;
+        PluginManager pluginManager = proxy(PluginManager.class, "callEvent", null);
+        Server server = proxy(Server.class, "getPluginManager", pluginManager);
+        Field field = Bukkit.class.getDeclaredField("server");
+        field.setAccessible(true);
+        field.set(null, server);
+        INSTALLED = true;
+    }
+
+    private static void callEvent(Event event) {
+        for (RegisteredListener listener : event.getHandlers().getRegisteredListeners()) {
+            try {
+                listener.callEvent(event);
+            } catch (EventException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Create a proxy returning defaults for everything but the logger and one method
+     */
+    private static <T> T proxy(Class<T> type, String methodName, Object value) {
+        Object proxy = Proxy.newProxyInstance(BenchmarkServer.class.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            String name = method.getName();
+            if (name.equals(methodName)) {
+                if (name.equals("callEvent")) {
+                    callEvent((Event) args[0]);
+                    return null;
+                }
+                return value;
+            }
+            return switch (name) {
+                case "equals" -> self == args[0];
+                case "hashCode" -> System.identityHashCode(self);
+                case "toString" -> type.getSimpleName() + "[benchmark]";
+                case "getLogger" -> LOGGER;
+                case "isEnabled" -> true;
+                default -> defaultValue(method.getReturnType());
+            };
+        });
+        return type.cast(proxy);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        return Array.get(Array.newInstance(type, 1), 0);
+    }
+
+}
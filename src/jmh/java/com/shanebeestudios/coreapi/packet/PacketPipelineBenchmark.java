@@ -0,0 +1,181 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.shanebeestudios.coreapi.event.PacketClientboundEvent;
+import com.shanebeestudios.coreapi.event.PacketEvent;
+import com.shanebeestudios.coreapi.event.PacketServerboundEvent;
+import io.netty.channel.embedded.EmbeddedChannel;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.common.ServerboundKeepAlivePacket;
+import net.minecraft.network.protocol.game.ClientboundSetTimePacket;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.RegisteredListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a packet passing the packet handler in both directions
+ * <p>Run with {@code ./gradlew jmh}, results are written as JSON to {@code build/results/jmh}
+ * and include the allocation rate from the gc profiler.</p>
+ * <p>The passthrough benchmarks have nothing subscribed, so they take none of the listener parameters.</p>
+ * <p>Only the dispatch stage is measured: the channel holds just the {@link PacketChannelHandler}, fed with small packets.
+ * The raw handlers next to the codec, the flush handler and the codec itself, which
+ * {@link com.shanebeestudios.coreapi.listener.PlayerPacketListener} installs around it on real connections,
+ * need a running server and are not part of these numbers.</p>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PacketPipelineBenchmark {
+
+    public enum Scenario {
+        // Listeners which only read the packet
+        LISTENERS,
+        // The last listener cancels the packet
+        CANCEL,
+        // The last listener replaces the packet with setPacket
+        REPLACE
+    }
+
+    /**
+     * Channel of a player the packets are written to
+     */
+    abstract static class Pipeline {
+
+        final Packet<?> clientbound = new ClientboundSetTimePacket(1000, 6000, true);
+        final Packet<?> serverbound = new ServerboundKeepAlivePacket(42);
+        EmbeddedChannel channel;
+
+        void open() {
+            this.channel = new EmbeddedChannel(PacketChannelHandler.INSTANCE);
+            PacketChannelHandler.setPlayer(this.channel, BenchmarkServer.PLAYER);
+        }
+
+        void close() {
+            this.channel.finishAndReleaseAll();
+        }
+
+    }
+
+    /**
+     * Channel with nothing subscribed, packets pass straight through
+     */
+    @State(Scope.Thread)
+    public static class Passthrough extends Pipeline {
+
+        @Setup(Level.Trial)
+        public void setup() throws ReflectiveOperationException {
+            BenchmarkServer.install();
+            open();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            close();
+        }
+
+    }
+
+    /**
+     * Channel with packet events subscribed and listening
+     */
+    @State(Scope.Thread)
+    public static class Subscribed extends Pipeline {
+
+        @Param({"LISTENERS", "CANCEL", "REPLACE"})
+        public Scenario scenario;
+
+        @Param({"1", "10"})
+        public int listeners;
+
+        @Param({"false", "true"})
+        public boolean reuseEvents;
+
+        private final Packet<?> clientboundReplacement = new ClientboundSetTimePacket(1000, 18000, true);
+        private final Packet<?> serverboundReplacement = new ServerboundKeepAlivePacket(43);
+        private final Listener listener = new Listener() {
+        };
+        private long seen;
+
+        @Setup(Level.Trial)
+        public void setup() throws ReflectiveOperationException {
+            BenchmarkServer.install();
+            PacketChannelHandler.setReuseEvents(this.reuseEvents);
+            PacketRegistry.subscribeAll(PacketDirection.CLIENTBOUND);
+            PacketRegistry.subscribeAll(PacketDirection.SERVERBOUND);
+            for (int i = 0; i < this.listeners; i++) {
+                boolean last = i == this.listeners - 1;
+                register(PacketClientboundEvent.getHandlerList(), last, this.clientboundReplacement);
+                register(PacketServerboundEvent.getHandlerList(), last, this.serverboundReplacement);
+            }
+            open();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            close();
+            HandlerList.unregisterAll(this.listener);
+            PacketRegistry.unsubscribeAll(PacketDirection.CLIENTBOUND);
+            PacketRegistry.unsubscribeAll(PacketDirection.SERVERBOUND);
+        }
+
+        private void register(HandlerList handlerList, boolean last, Packet<?> replacement) {
+            handlerList.register(new RegisteredListener(this.listener, (listener, event) -> {
+                PacketEvent packetEvent = (PacketEvent) event;
+                if (packetEvent.getPacket() != null) this.seen++;
+                if (!last) return;
+                if (this.scenario == Scenario.CANCEL) packetEvent.setCancelled(true);
+                else if (this.scenario == Scenario.REPLACE) packetEvent.setPacket(replacement);
+            }, EventPriority.NORMAL, BenchmarkServer.PLUGIN, false));
+        }
+
+    }
+
+    @Benchmark
+    public void clientboundPassthrough(Passthrough state, Blackhole blackhole) {
+        writeClientbound(state, blackhole);
+    }
+
+    @Benchmark
+    public void serverboundPassthrough(Passthrough state, Blackhole blackhole) {
+        writeServerbound(state, blackhole);
+    }
+
+    @Benchmark
+    public void clientbound(Subscribed state, Blackhole blackhole) {
+        writeClientbound(state, blackhole);
+    }
+
+    @Benchmark
+    public void serverbound(Subscribed state, Blackhole blackhole) {
+        writeServerbound(state, blackhole);
+    }
+
+    private static void writeClientbound(Pipeline state, Blackhole blackhole) {
+        state.channel.writeOutbound(state.clientbound);
+        blackhole.consume(state.channel.readOutbound());
+    }
+
+    private static void writeServerbound(Pipeline state, Blackhole blackhole) {
+        state.channel.writeInbound(state.serverbound);
+        blackhole.consume(state.channel.readInbound());
+    }
+
+}
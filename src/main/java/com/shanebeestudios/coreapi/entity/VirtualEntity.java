@@ -0,0 +1,283 @@
+package com.shanebeestudios.coreapi.entity;
+
+import com.google.common.base.Preconditions;
+import io.papermc.paper.adventure.PaperAdventure;
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import net.kyori.adventure.text.Component;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundAddEntityPacket;
+import net.minecraft.network.protocol.game.ClientboundSetEntityDataPacket;
+import net.minecraft.network.protocol.game.ClientboundTeleportEntityPacket;
+import net.minecraft.network.syncher.EntityDataSerializer;
+import net.minecraft.network.syncher.EntityDataSerializers;
+import net.minecraft.network.syncher.SynchedEntityData;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.PositionMoveRotation;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.phys.Vec3;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * An entity which only exists on clients
+ * <p>Virtual entities have no server side entity, they are spawned, updated and removed with packets only.
+ * Changes are batched and sent to players once per tick by the {@link VirtualEntityManager}.</p>
+ * <p>Virtual entities may only be used from the main thread.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class VirtualEntity {
+
+    private static final int DATA_SHARED_FLAGS = 0;
+    private static final int DATA_CUSTOM_NAME = 2;
+    private static final int DATA_CUSTOM_NAME_VISIBLE = 3;
+    private static final int DATA_NO_GRAVITY = 5;
+    private static final int FLAG_INVISIBLE = 0x20;
+    private static final int FLAG_GLOWING = 0x40;
+
+    private final int id;
+    private final UUID uuid = UUID.randomUUID();
+    private final EntityType<?> type;
+    private World world;
+    private double x, y, z;
+    private float yaw, pitch;
+    private byte flags;
+    private final Int2ObjectMap<SynchedEntityData.DataValue<?>> metadata = new Int2ObjectLinkedOpenHashMap<>();
+    private final Int2ObjectMap<SynchedEntityData.DataValue<?>> dirtyMetadata = new Int2ObjectLinkedOpenHashMap<>();
+    private boolean moved;
+    private boolean removed;
+
+    // Update packets of the current tick, shared by all viewers
+    private Packet<? super ClientGamePacketListener> teleportPacket;
+    private Packet<? super ClientGamePacketListener> metadataPacket;
+
+    VirtualEntity(int id, EntityType<?> type, Location location) {
+        this.id = id;
+        this.type = type;
+        setPosition(location);
+    }
+
+    /**
+     * Get the entity id of this entity
+     *
+     * @return Entity id
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Get the unique id of this entity
+     *
+     * @return Unique id
+     */
+    public @NotNull UUID getUniqueId() {
+        return this.uuid;
+    }
+
+    /**
+     * Get the Minecraft type of this entity
+     *
+     * @return Type of entity
+     */
+    public @NotNull EntityType<?> getType() {
+        return this.type;
+    }
+
+    /**
+     * Get the world this entity is in
+     *
+     * @return World of entity
+     */
+    public @NotNull World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Get the location of this entity
+     *
+     * @return New location of entity
+     */
+    public @NotNull Location getLocation() {
+        return new Location(this.world, this.x, this.y, this.z, this.yaw, this.pitch);
+    }
+
+    /**
+     * Teleport this entity
+     *
+     * @param location Location to teleport to
+     */
+    public void teleport(@NotNull Location location) {
+        checkRemoved();
+        Preconditions.checkArgument(location != null, "Location cannot be null");
+        World oldWorld = this.world;
+        long oldChunk = getChunkKey();
+        setPosition(location);
+        this.moved = true;
+        VirtualEntityManager.markDirty(this);
+        if (oldWorld != this.world || oldChunk != getChunkKey()) VirtualEntityManager.move(this, oldWorld, oldChunk);
+    }
+
+    /**
+     * Set a metadata value of this entity
+     * <p>See the <a href="https://minecraft.wiki/w/Java_Edition_protocol/Entity_metadata">entity metadata</a>
+     * for the indexes and types of each entity type.</p>
+     *
+     * @param index      Index of value
+     * @param serializer Serializer of value's type
+     * @param value      Value to set
+     * @param <T>        Type of value
+     */
+    public <T> void setMetadata(int index, @NotNull EntityDataSerializer<T> serializer, @NotNull T value) {
+        checkRemoved();
+        Preconditions.checkArgument(serializer != null, "EntityDataSerializer cannot be null");
+        Preconditions.checkArgument(value != null, "Value cannot be null");
+        SynchedEntityData.DataValue<T> dataValue = new SynchedEntityData.DataValue<>(index, serializer, value);
+        this.metadata.put(index, dataValue);
+        this.dirtyMetadata.put(index, dataValue);
+        VirtualEntityManager.markDirty(this);
+    }
+
+    /**
+     * Set the custom name of this entity
+     *
+     * @param name Name to set, null to remove
+     */
+    public void setCustomName(@Nullable Component name) {
+        setMetadata(DATA_CUSTOM_NAME, EntityDataSerializers.OPTIONAL_COMPONENT,
+            Optional.ofNullable(name == null ? null : PaperAdventure.asVanilla(name)));
+    }
+
+    /**
+     * Set whether the custom name of this entity is always visible
+     *
+     * @param visible Whether the custom name is visible
+     */
+    public void setCustomNameVisible(boolean visible) {
+        setMetadata(DATA_CUSTOM_NAME_VISIBLE, EntityDataSerializers.BOOLEAN, visible);
+    }
+
+    /**
+     * Set whether this entity is invisible
+     *
+     * @param invisible Whether invisible
+     */
+    public void setInvisible(boolean invisible) {
+        setFlag(FLAG_INVISIBLE, invisible);
+    }
+
+    /**
+     * Set whether this entity is glowing
+     *
+     * @param glowing Whether glowing
+     */
+    public void setGlowing(boolean glowing) {
+        setFlag(FLAG_GLOWING, glowing);
+    }
+
+    /**
+     * Set whether this entity has no gravity
+     * <p>Clients predict the movement of some entities, which this prevents.</p>
+     *
+     * @param noGravity Whether the entity has no gravity
+     */
+    public void setNoGravity(boolean noGravity) {
+        setMetadata(DATA_NO_GRAVITY, EntityDataSerializers.BOOLEAN, noGravity);
+    }
+
+    /**
+     * Check whether this entity is currently shown to a player
+     *
+     * @param player Player to check
+     * @return True if shown to player
+     */
+    public boolean isVisibleTo(@NotNull Player player) {
+        Preconditions.checkArgument(player != null, "Player cannot be null");
+        return VirtualEntityManager.isVisible(this, player);
+    }
+
+    /**
+     * Remove this entity from all players
+     */
+    public void remove() {
+        if (this.removed) return;
+        this.removed = true;
+        VirtualEntityManager.remove(this);
+    }
+
+    /**
+     * Check whether this entity was removed
+     *
+     * @return True if removed
+     */
+    public boolean isRemoved() {
+        return this.removed;
+    }
+
+    private void setFlag(int flag, boolean value) {
+        this.flags = (byte) (value ? this.flags | flag : this.flags & ~flag);
+        setMetadata(DATA_SHARED_FLAGS, EntityDataSerializers.BYTE, this.flags);
+    }
+
+    private void setPosition(Location location) {
+        Preconditions.checkArgument(location.getWorld() != null, "Location must have a world");
+        this.world = location.getWorld();
+        this.x = location.getX();
+        this.y = location.getY();
+        this.z = location.getZ();
+        this.yaw = location.getYaw();
+        this.pitch = location.getPitch();
+    }
+
+    private void checkRemoved() {
+        if (this.removed) throw new IllegalStateException("Virtual entity was removed!");
+    }
+
+    long getChunkKey() {
+        return ChunkPos.asLong((int) Math.floor(this.x) >> 4, (int) Math.floor(this.z) >> 4);
+    }
+
+    void addSpawnPackets(List<Packet<? super ClientGamePacketListener>> packets) {
+        packets.add(new ClientboundAddEntityPacket(this.id, this.uuid, this.x, this.y, this.z, this.pitch, this.yaw,
+            this.type, 0, Vec3.ZERO, this.yaw));
+        if (!this.metadata.isEmpty()) {
+            packets.add(new ClientboundSetEntityDataPacket(this.id, new ArrayList<>(this.metadata.values())));
+        }
+    }
+
+    void addUpdatePackets(List<Packet<? super ClientGamePacketListener>> packets) {
+        if (this.moved) {
+            if (this.teleportPacket == null) {
+                this.teleportPacket = new ClientboundTeleportEntityPacket(this.id,
+                    new PositionMoveRotation(new Vec3(this.x, this.y, this.z), Vec3.ZERO, this.yaw, this.pitch), Set.of(), false);
+            }
+            packets.add(this.teleportPacket);
+        }
+        if (!this.dirtyMetadata.isEmpty()) {
+            if (this.metadataPacket == null) {
+                this.metadataPacket = new ClientboundSetEntityDataPacket(this.id, new ArrayList<>(this.dirtyMetadata.values()));
+            }
+            packets.add(this.metadataPacket);
+        }
+    }
+
+    void clearDirty() {
+        this.moved = false;
+        this.dirtyMetadata.clear();
+        this.teleportPacket = null;
+        this.metadataPacket = null;
+    }
+
+}
@@ -0,0 +1,310 @@
+package com.shanebeestudios.coreapi.entity;
+
+import com.google.common.base.Preconditions;
+import com.shanebeestudios.coreapi.util.McUtils;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import net.minecraft.network.protocol.game.ClientboundRemoveEntitiesPacket;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.craftbukkit.entity.CraftEntityType;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Manager of {@link VirtualEntity virtual entities}
+ * <p>Virtual entities are indexed by chunk. Once per tick each player's visible entities are recalculated
+ * if the player moved to another chunk or entities in range were spawned, moved between chunks or removed.
+ * All spawns, updates and removals for a player are then sent together in bundle packets,
+ * so the client applies them in a single frame.</p>
+ * <p>Entities are visible to players within their view distance. Everything in here may only be used from the main thread.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class VirtualEntityManager implements Listener {
+
+    // Max amount of packets the client accepts in a single bundle
+    private static final int MAX_BUNDLE_SIZE = 4096;
+
+    private static VirtualEntityManager MANAGER;
+    private static BukkitTask TASK;
+    private static final Int2ObjectMap<VirtualEntity> ENTITIES = new Int2ObjectOpenHashMap<>();
+    private static final Map<UUID, Long2ObjectMap<Set<VirtualEntity>>> INDEX = new HashMap<>();
+    private static final Map<UUID, LongSet> CHANGED_CHUNKS = new HashMap<>();
+    private static final Set<VirtualEntity> DIRTY = new ReferenceLinkedOpenHashSet<>();
+    private static final Map<UUID, Viewer> VIEWERS = new HashMap<>();
+
+    private VirtualEntityManager() {
+    }
+
+    /**
+     * Initialize the manager with a plugin
+     *
+     * @param plugin Plugin used to send updates every tick
+     */
+    public static void init(@NotNull Plugin plugin) {
+        Preconditions.checkArgument(plugin != null, "Plugin cannot be null");
+        if (MANAGER != null) {
+            throw new IllegalStateException("VirtualEntityManager is already initialized!");
+        }
+        MANAGER = new VirtualEntityManager();
+        Bukkit.getPluginManager().registerEvents(MANAGER, plugin);
+        TASK = Bukkit.getScheduler().runTaskTimer(plugin, VirtualEntityManager::tick, 1, 1);
+    }
+
+    /**
+     * Remove all virtual entities from players and stop the manager
+     */
+    public static void shutdown() {
+        if (MANAGER == null) return;
+        for (VirtualEntity entity : new ArrayList<>(ENTITIES.values())) {
+            entity.remove();
+        }
+        tick();
+        TASK.cancel();
+        HandlerList.unregisterAll(MANAGER);
+        MANAGER = null;
+        TASK = null;
+        VIEWERS.clear();
+    }
+
+    /**
+     * Spawn a virtual entity
+     *
+     * @param type     Type of entity
+     * @param location Location to spawn at
+     * @return Spawned entity, sent to players on the next tick
+     */
+    public static @NotNull VirtualEntity spawn(@NotNull EntityType type, @NotNull Location location) {
+        Preconditions.checkArgument(type != null, "EntityType cannot be null");
+        Preconditions.checkArgument(type != EntityType.UNKNOWN, "EntityType cannot be UNKNOWN");
+        Preconditions.checkArgument(location != null, "Location cannot be null");
+        return spawn(CraftEntityType.bukkitToMinecraft(type), location);
+    }
+
+    /**
+     * Spawn a virtual entity
+     *
+     * @param type     Minecraft type of entity
+     * @param location Location to spawn at
+     * @return Spawned entity, sent to players on the next tick
+     */
+    public static @NotNull VirtualEntity spawn(@NotNull net.minecraft.world.entity.EntityType<?> type, @NotNull Location location) {
+        Preconditions.checkArgument(type != null, "EntityType cannot be null");
+        Preconditions.checkArgument(location != null, "Location cannot be null");
+        if (MANAGER == null) {
+            throw new IllegalStateException("VirtualEntityManager is not initialized, run 'VirtualEntityManager.init(Plugin)' first.");
+        }
+        VirtualEntity entity = new VirtualEntity(Bukkit.getUnsafe().nextEntityId(), type, location);
+        ENTITIES.put(entity.getId(), entity);
+        index(entity, entity.getWorld(), entity.getChunkKey());
+        return entity;
+    }
+
+    /**
+     * Get a virtual entity by its id
+     *
+     * @param id Id of entity
+     * @return Entity with id, null if there is none
+     */
+    public static @Nullable VirtualEntity getEntity(int id) {
+        return ENTITIES.get(id);
+    }
+
+    /**
+     * Get all virtual entities
+     *
+     * @return All virtual entities
+     */
+    public static @NotNull List<VirtualEntity> getEntities() {
+        return new ArrayList<>(ENTITIES.values());
+    }
+
+    static void markDirty(VirtualEntity entity) {
+        DIRTY.add(entity);
+    }
+
+    static void move(VirtualEntity entity, World oldWorld, long oldChunk) {
+        unindex(entity, oldWorld, oldChunk);
+        index(entity, entity.getWorld(), entity.getChunkKey());
+    }
+
+    static void remove(VirtualEntity entity) {
+        ENTITIES.remove(entity.getId());
+        DIRTY.remove(entity);
+        unindex(entity, entity.getWorld(), entity.getChunkKey());
+    }
+
+    static boolean isVisible(VirtualEntity entity, Player player) {
+        Viewer viewer = VIEWERS.get(player.getUniqueId());
+        return viewer != null && viewer.visible.contains(entity);
+    }
+
+    private static void index(VirtualEntity entity, World world, long chunk) {
+        INDEX.computeIfAbsent(world.getUID(), uuid -> new Long2ObjectOpenHashMap<>())
+            .computeIfAbsent(chunk, key -> new ReferenceOpenHashSet<>())
+            .add(entity);
+        CHANGED_CHUNKS.computeIfAbsent(world.getUID(), uuid -> new LongOpenHashSet()).add(chunk);
+    }
+
+    private static void unindex(VirtualEntity entity, World world, long chunk) {
+        Long2ObjectMap<Set<VirtualEntity>> chunks = INDEX.get(world.getUID());
+        if (chunks == null) return;
+        Set<VirtualEntity> entities = chunks.get(chunk);
+        if (entities == null || !entities.remove(entity)) return;
+        if (entities.isEmpty()) chunks.remove(chunk);
+        CHANGED_CHUNKS.computeIfAbsent(world.getUID(), uuid -> new LongOpenHashSet()).add(chunk);
+    }
+
+    private static void tick() {
+        List<Packet<? super ClientGamePacketListener>> packets = new ArrayList<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            Viewer viewer = VIEWERS.computeIfAbsent(player.getUniqueId(), uuid -> new Viewer());
+            ServerPlayer serverPlayer = McUtils.getServerPlayer(player);
+            World world = player.getWorld();
+            ChunkPos chunkPos = serverPlayer.chunkPosition();
+            int viewDistance = player.getViewDistance();
+
+            Set<VirtualEntity> spawned = Set.of();
+            if (!world.getUID().equals(viewer.world) || viewer.chunkX != chunkPos.x || viewer.chunkZ != chunkPos.z ||
+                viewer.viewDistance != viewDistance || hasChangedChunks(world.getUID(), chunkPos, viewDistance)) {
+                viewer.world = world.getUID();
+                viewer.chunkX = chunkPos.x;
+                viewer.chunkZ = chunkPos.z;
+                viewer.viewDistance = viewDistance;
+                spawned = updateVisible(viewer, packets);
+            }
+            if (!DIRTY.isEmpty()) {
+                for (VirtualEntity entity : viewer.visible) {
+                    if (!spawned.contains(entity) && DIRTY.contains(entity)) entity.addUpdatePackets(packets);
+                }
+            }
+            if (!packets.isEmpty()) {
+                send(serverPlayer, packets);
+                packets.clear();
+            }
+        }
+        for (VirtualEntity entity : DIRTY) {
+            entity.clearDirty();
+        }
+        DIRTY.clear();
+        CHANGED_CHUNKS.clear();
+    }
+
+    private static boolean hasChangedChunks(UUID world, ChunkPos center, int viewDistance) {
+        LongSet changed = CHANGED_CHUNKS.get(world);
+        if (changed == null || changed.isEmpty()) return false;
+        for (long chunk : changed) {
+            if (Math.abs(ChunkPos.getX(chunk) - center.x) <= viewDistance && Math.abs(ChunkPos.getZ(chunk) - center.z) <= viewDistance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Recalculate the entities visible to a viewer, adding spawn and remove packets for the difference
+     *
+     * @return Entities which were spawned
+     */
+    private static Set<VirtualEntity> updateVisible(Viewer viewer, List<Packet<? super ClientGamePacketListener>> packets) {
+        Set<VirtualEntity> visible = new ReferenceOpenHashSet<>();
+        Long2ObjectMap<Set<VirtualEntity>> chunks = INDEX.get(viewer.world);
+        if (chunks != null && !chunks.isEmpty()) {
+            int range = viewer.viewDistance;
+            for (int x = viewer.chunkX - range; x <= viewer.chunkX + range; x++) {
+                for (int z = viewer.chunkZ - range; z <= viewer.chunkZ + range; z++) {
+                    Set<VirtualEntity> entities = chunks.get(ChunkPos.asLong(x, z));
+                    if (entities != null) visible.addAll(entities);
+                }
+            }
+        }
+
+        IntArrayList removed = new IntArrayList();
+        for (VirtualEntity entity : viewer.visible) {
+            if (!visible.contains(entity)) removed.add(entity.getId());
+        }
+        if (!removed.isEmpty()) packets.add(new ClientboundRemoveEntitiesPacket(removed));
+        Set<VirtualEntity> spawned = new ReferenceOpenHashSet<>();
+        for (VirtualEntity entity : visible) {
+            if (viewer.visible.contains(entity)) continue;
+            entity.addSpawnPackets(packets);
+            spawned.add(entity);
+        }
+        viewer.visible = visible;
+        return spawned;
+    }
+
+    private static void send(ServerPlayer player, List<Packet<? super ClientGamePacketListener>> packets) {
+        if (packets.size() == 1) {
+            player.connection.send(packets.getFirst());
+            return;
+        }
+        for (int i = 0; i < packets.size(); i += MAX_BUNDLE_SIZE) {
+            List<Packet<? super ClientGamePacketListener>> bundle = new ArrayList<>(packets.subList(i, Math.min(packets.size(), i + MAX_BUNDLE_SIZE)));
+            player.connection.send(new ClientboundBundlePacket(bundle));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onQuit(PlayerQuitEvent event) {
+        VIEWERS.remove(event.getPlayer().getUniqueId());
+    }
+
+    // The client forgets all entities when changing worlds or respawning
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onChangeWorld(PlayerChangedWorldEvent event) {
+        VIEWERS.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onRespawn(PlayerRespawnEvent event) {
+        VIEWERS.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Entities a player can currently see, and where they were when last calculated
+     */
+    private static class Viewer {
+
+        private UUID world;
+        private int chunkX;
+        private int chunkZ;
+        private int viewDistance = -1;
+        private Set<VirtualEntity> visible = Set.of();
+
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Client side only entities, which only exist as packets
+ */
+package com.shanebeestudios.coreapi.entity;
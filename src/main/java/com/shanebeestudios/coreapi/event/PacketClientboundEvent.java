@@ -1,6 +1,7 @@
 package com.shanebeestudios.coreapi.event;
 
 import com.shanebeestudios.coreapi.listener.PlayerPacketListener;
+import com.shanebeestudios.coreapi.packet.PacketRegistry;
 import net.minecraft.network.protocol.Packet;
 import org.bukkit.entity.Player;
 import org.bukkit.event.HandlerList;
@@ -10,6 +11,7 @@ import org.jetbrains.annotations.NotNull;
 /**
  * Called when a packet is sent to a client
  * <p>To listen to this event you will first need to execute {@link PlayerPacketListener#registerListener(Plugin)}</p>
+ * <p>Only packets subscribed to in the {@link PacketRegistry} will call this event.</p>
  */
 @SuppressWarnings("unused")
 public class PacketClientboundEvent extends PacketEvent {
@@ -1,18 +1,36 @@
 package com.shanebeestudios.coreapi.event;
 
+import com.shanebeestudios.coreapi.listener.PlayerPacketListener;
+import com.shanebeestudios.coreapi.packet.PacketEventAccess;
+import com.shanebeestudios.coreapi.util.ObjectPlan;
 import net.minecraft.network.protocol.Packet;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Cancellable;
 import org.bukkit.event.Event;
+import org.jetbrains.annotations.ApiStatus;
 
 /**
  * Abstract class for packet events
+ * <p>If {@link PlayerPacketListener#setReuseEvents(boolean) event reuse} is enabled,
+ * the same event instance is reset for every packet of a connection.
+ * In that case do not keep a reference to the event or use it after your listener returns,
+ * copy the packet/player out of it instead.</p>
  */
 @SuppressWarnings("unused")
 public abstract class PacketEvent extends Event implements Cancellable {
 
+    static {
+        PacketEventAccess.setAccess(new PacketEventAccess() {
+            @Override
+            protected void reset(PacketEvent event, Packet<?> packet, Player player) {
+                event.reset(packet, player);
+            }
+        });
+    }
+
     private Packet<?> packet;
-    private final Player player;
+    // Only changed when a reused event is reset for the next packet
+    private Player player;
     private boolean cancelled = false;
 
     PacketEvent(Packet<?> packet, Player player) {
@@ -21,6 +39,18 @@ public abstract class PacketEvent extends Event implements Cancellable {
         this.player = player;
     }
 
+    /**
+     * Reset this event to be reused for another packet
+     *
+     * @param packet Packet of event
+     * @param player Player of event
+     */
+    void reset(Packet<?> packet, Player player) {
+        this.packet = packet;
+        this.player = player;
+        this.cancelled = false;
+    }
+
     /**
      * Get the packet from the event
      *
@@ -30,6 +60,22 @@ public abstract class PacketEvent extends Event implements Cancellable {
         return this.packet;
     }
 
+    /**
+     * Get a shallow copy of the packet from the event
+     * <p>Modify the copy and pass it to {@link #setPacket(Packet)},
+     * as the original packet may be shared with other players.
+     * Copies use a cached {@link ObjectPlan} of the packet class.</p>
+     *
+     * @return Copy of packet
+     * @throws com.shanebeestudios.coreapi.util.ReflectionException If the packet class can't be copied
+     */
+    @ApiStatus.AvailableSince("1.2.0")
+    @SuppressWarnings("unchecked")
+    public Packet<?> copyPacket() {
+        ObjectPlan<Packet<?>> plan = ObjectPlan.of((Class<Packet<?>>) (Class<?>) this.packet.getClass());
+        return plan.copy(this.packet);
+    }
+
     /**
      * Set the packet to use in this event
      *
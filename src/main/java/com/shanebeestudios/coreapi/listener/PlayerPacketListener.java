@@ -1,73 +1,289 @@
 package com.shanebeestudios.coreapi.listener;
 
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import com.google.common.base.Preconditions;
 import com.shanebeestudios.coreapi.event.PacketEvent;
-import com.shanebeestudios.coreapi.event.PacketServerboundEvent;
-import com.shanebeestudios.coreapi.event.PacketClientboundEvent;
-import io.netty.channel.ChannelDuplexHandler;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelPromise;
-import net.minecraft.network.protocol.Packet;
-import net.minecraft.server.level.ServerPlayer;
+import com.shanebeestudios.coreapi.packet.PacketCapture;
+import com.shanebeestudios.coreapi.packet.PacketChannelHandler;
+import com.shanebeestudios.coreapi.packet.PacketDirection;
+import com.shanebeestudios.coreapi.packet.PacketFlushHandler;
+import com.shanebeestudios.coreapi.packet.PacketHandler;
+import com.shanebeestudios.coreapi.packet.PacketMetrics;
+import com.shanebeestudios.coreapi.packet.PacketRegistry;
+import com.shanebeestudios.coreapi.packet.PacketReplayer;
+import com.shanebeestudios.coreapi.packet.RawPacketChannelHandler;
+import com.shanebeestudios.coreapi.util.McUtils;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
+import io.papermc.paper.network.ChannelInitializeListenerHolder;
+import net.kyori.adventure.key.Key;
+import net.minecraft.network.Connection;
+import net.minecraft.server.MinecraftServer;
 import org.bukkit.Bukkit;
-import org.bukkit.craftbukkit.entity.CraftPlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.Plugin;
-import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
 
 /**
  * Listener for packets
+ * <p>A single shared handler is added to every connection when its channel is initialized,
+ * so packets are intercepted from the handshake onwards.</p>
  */
 public class PlayerPacketListener implements Listener {
 
-    private static boolean registered = false;
+    private static final String PACKET_HANDLER = "packet_handler";
+    private static final String DECODER = "decoder";
+    private static final String PREPENDER = "prepender";
+    private static PlayerPacketListener LISTENER;
+    private static Key INITIALIZER_KEY;
+    private static String HANDLER_NAME;
+    private static volatile int FLUSH_MAX_WRITES = 0;
+    private static volatile boolean FLUSH_END_OF_TICK = false;
 
     /** Register a listener for {@link PacketEvent packet events}
+     * <p>This will subscribe to all packets in both directions.</p>
      * @param plugin Your plugin to enable this listener
      */
     @SuppressWarnings("unused")
     public static void registerListener(Plugin plugin) {
-        if (registered) {
+        registerListener(plugin, true);
+    }
+
+    /** Register a listener for {@link PacketEvent packet events} and {@link PacketHandler packet handlers}
+     * <p>If not subscribing to all packets, only packets subscribed to
+     * in the {@link PacketRegistry} will call events.
+     * Handlers registered in the {@link PacketRegistry} are called either way.</p>
+     * @param plugin Your plugin to enable this listener
+     * @param subscribeAll Whether to subscribe to all packets in both directions
+     */
+    @SuppressWarnings("unused")
+    public static void registerListener(Plugin plugin, boolean subscribeAll) {
+        if (LISTENER != null) {
             throw new IllegalStateException("Listener is already registered!");
         }
-        Bukkit.getPluginManager().registerEvents(new PlayerPacketListener(), plugin);
-        registered = true;
+        if (subscribeAll) {
+            PacketRegistry.setListenerSubscribedAll(PacketDirection.CLIENTBOUND, true);
+            PacketRegistry.setListenerSubscribedAll(PacketDirection.SERVERBOUND, true);
+        }
+        String name = plugin.getName().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_.-]", "_");
+        INITIALIZER_KEY = Key.key(name, "packet_listener");
+        String handlerName = name + "_packet_listener";
+        HANDLER_NAME = handlerName;
+        LISTENER = new PlayerPacketListener();
+
+        // New connections get the handler as soon as their channel is initialized
+        ChannelInitializeListenerHolder.addListener(INITIALIZER_KEY, channel -> addHandler(channel, handlerName));
+        // Connections which are already open when registering
+        for (Channel channel : getChannels()) {
+            channel.eventLoop().execute(() -> addHandler(channel, handlerName));
+        }
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            setPlayer(player, player);
+        }
+        Bukkit.getPluginManager().registerEvents(LISTENER, plugin);
+    }
+
+    /**
+     * Unregister the packet listener
+     * <p>This removes the handler from all open connections and stops it being added to new ones.
+     * If the listener subscribed to all packets when registered, that subscription is removed as well.</p>
+     */
+    @SuppressWarnings("unused")
+    public static void unregisterListener() {
+        if (LISTENER == null) {
+            throw new IllegalStateException("Listener is not registered!");
+        }
+        ChannelInitializeListenerHolder.removeListener(INITIALIZER_KEY);
+        HandlerList.unregisterAll(LISTENER);
+        String handlerName = HANDLER_NAME;
+        for (Channel channel : getChannels()) {
+            channel.eventLoop().execute(() -> {
+                ChannelPipeline pipeline = channel.pipeline();
+                for (String name : List.of(handlerName, handlerName + "_flush", handlerName + "_raw_in", handlerName + "_raw_out")) {
+                    if (pipeline.get(name) != null) pipeline.remove(name);
+                }
+                PacketChannelHandler.setPlayer(channel, null);
+            });
+        }
+        PacketCapture.stop();
+        // Only removes the listener's own subscription, classes subscribed to in the registry stay
+        PacketRegistry.setListenerSubscribedAll(PacketDirection.CLIENTBOUND, false);
+        PacketRegistry.setListenerSubscribedAll(PacketDirection.SERVERBOUND, false);
+        LISTENER = null;
+        INITIALIZER_KEY = null;
+        HANDLER_NAME = null;
+    }
+
+    /**
+     * Set whether {@link PacketEvent packet events} are reused
+     * <p>When enabled, each connection keeps one event per direction which is reset for every packet,
+     * so calling events no longer allocates. An event must then not be kept or used after its listener returns,
+     * as it will already hold the next packet of the connection.</p>
+     *
+     * @param reuseEvents Whether to reuse events
+     */
+    @SuppressWarnings("unused")
+    public static void setReuseEvents(boolean reuseEvents) {
+        PacketChannelHandler.setReuseEvents(reuseEvents);
+    }
+
+    /**
+     * Set the executor {@link PacketRegistry#registerAsyncHandler(Plugin, PacketDirection, Class, EventPriority, PacketHandler) async handlers} run on
+     * <p>By default a new virtual thread is used for every packet. A bounded executor may be used instead,
+     * if it rejects a packet the handlers run on the netty thread.</p>
+     *
+     * @param executor Executor to use
+     */
+    @SuppressWarnings("unused")
+    public static void setAsyncExecutor(Executor executor) {
+        PacketChannelHandler.setAsyncExecutor(executor);
+    }
+
+    /**
+     * Set the max amount of packets from a player which may wait on async handlers
+     * <p>When more packets are waiting, reading from the player's connection is paused
+     * until half of them have been handled. Defaults to 256.</p>
+     *
+     * @param maxPendingPackets Max amount of waiting packets
+     */
+    @SuppressWarnings("unused")
+    public static void setMaxPendingPackets(int maxPendingPackets) {
+        PacketChannelHandler.setMaxPendingPackets(maxPendingPackets);
+    }
+
+    /**
+     * Enable flush consolidation on all connections
+     * <p>Instead of flushing every time the server asks to, flushes are held back until either
+     * the amount of writes since the last flush reaches maxWrites, or (depending on endOfTick)
+     * the connection's netty thread has run its other queued tasks or the server tick ended.
+     * This turns many small socket writes into fewer larger ones.
+     * Saved flushes can be seen in {@link PacketMetrics#getFlushesSaved()}.</p>
+     *
+     * @param maxWrites Amount of pending writes after which a flush is passed on immediately
+     * @param endOfTick Whether to hold flushes until the end of the server tick
+     */
+    @SuppressWarnings("unused")
+    public static void enableFlushConsolidation(int maxWrites, boolean endOfTick) {
+        Preconditions.checkArgument(maxWrites > 0, "Max writes must be greater than 0");
+        FLUSH_MAX_WRITES = maxWrites;
+        FLUSH_END_OF_TICK = endOfTick;
+        updateFlushHandlers();
+    }
+
+    /**
+     * Disable flush consolidation on all connections
+     */
+    @SuppressWarnings("unused")
+    public static void disableFlushConsolidation() {
+        FLUSH_MAX_WRITES = 0;
+        updateFlushHandlers();
+    }
+
+    /**
+     * Start capturing the packets of all joined players
+     * <p>Packets are recorded encoded, as they are read from/written to the connection, into memory mapped segment files
+     * in the directory. Captures can be replayed with the {@link PacketReplayer}.</p>
+     *
+     * @param directory   Directory to write the capture to, should not already contain a capture
+     * @param segmentSize Size of each segment file in bytes
+     * @throws IOException If the capture could not be started
+     */
+    @SuppressWarnings("unused")
+    public static void startCapture(Path directory, int segmentSize) throws IOException {
+        PacketCapture.start(directory, segmentSize);
+    }
+
+    /**
+     * Stop capturing packets
+     */
+    @SuppressWarnings("unused")
+    public static void stopCapture() {
+        PacketCapture.stop();
+    }
+
+    /**
+     * Check whether packets are being captured
+     *
+     * @return True if capturing
+     */
+    @SuppressWarnings("unused")
+    public static boolean isCapturing() {
+        return PacketCapture.isCapturing();
+    }
+
+    private static void updateFlushHandlers() {
+        String handlerName = HANDLER_NAME;
+        if (handlerName == null) return;
+        for (Channel channel : getChannels()) {
+            channel.eventLoop().execute(() -> {
+                ChannelPipeline pipeline = channel.pipeline();
+                if (pipeline.get(handlerName + "_flush") != null) pipeline.remove(handlerName + "_flush");
+                addFlushHandler(pipeline, handlerName);
+            });
+        }
+    }
+
+    private static void addFlushHandler(ChannelPipeline pipeline, String handlerName) {
+        int maxWrites = FLUSH_MAX_WRITES;
+        if (maxWrites <= 0 || pipeline.get(handlerName) == null) return;
+        pipeline.addBefore(handlerName, handlerName + "_flush", new PacketFlushHandler(maxWrites, FLUSH_END_OF_TICK));
     }
 
     private PlayerPacketListener() {
     }
 
+    private static void addHandler(Channel channel, String handlerName) {
+        ChannelPipeline pipeline = channel.pipeline();
+        if (pipeline.get(PACKET_HANDLER) == null || pipeline.get(handlerName) != null) return;
+        pipeline.addBefore(PACKET_HANDLER, handlerName, PacketChannelHandler.INSTANCE);
+        addFlushHandler(pipeline, handlerName);
+        // Raw handlers next to the codec, compression is later added outside of these
+        if (pipeline.get(DECODER) != null) pipeline.addBefore(DECODER, handlerName + "_raw_in", RawPacketChannelHandler.INBOUND);
+        if (pipeline.get(PREPENDER) != null) pipeline.addAfter(PREPENDER, handlerName + "_raw_out", RawPacketChannelHandler.OUTBOUND);
+    }
+
+    private static List<Channel> getChannels() {
+        List<Connection> connections = MinecraftServer.getServer().getConnection().getConnections();
+        List<Channel> channels = new ArrayList<>();
+        synchronized (connections) {
+            for (Connection connection : connections) {
+                if (connection.channel != null) channels.add(connection.channel);
+            }
+        }
+        return channels;
+    }
+
+    private static void setPlayer(Player bukkitPlayer, @Nullable Player value) {
+        Connection connection = McUtils.getServerPlayer(bukkitPlayer).connection.connection;
+        PacketChannelHandler.setPlayer(connection.channel, value);
+    }
+
     @EventHandler
+    private void onTickEnd(ServerTickEndEvent event) {
+        PacketFlushHandler.flushEndOfTick();
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
     private void onPlayerJoin(PlayerJoinEvent event) {
-        Player bukkitPlayer = event.getPlayer();
-        ServerPlayer serverPlayer = ((CraftPlayer) bukkitPlayer).getHandle();
-
-        ChannelDuplexHandler handler = new ChannelDuplexHandler() {
-            @Override
-            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
-                if (msg instanceof Packet<?> packet) {
-                    PacketEvent packetEvent = new PacketClientboundEvent(packet, bukkitPlayer);
-                    if (!packetEvent.callEvent()) return;
-                    super.write(ctx, packetEvent.getPacket(), promise);
-                    return;
-                }
-                super.write(ctx, msg, promise);
-            }
+        setPlayer(event.getPlayer(), event.getPlayer());
+    }
 
-            @Override
-            public void channelRead(@NotNull ChannelHandlerContext ctx, @NotNull Object msg) throws Exception {
-                if (msg instanceof Packet<?> packet) {
-                    PacketEvent packetEvent = new PacketServerboundEvent(packet, bukkitPlayer);
-                    if (!packetEvent.callEvent()) return;
-                    super.channelRead(ctx, packetEvent.getPacket());
-                    return;
-                }
-                super.channelRead(ctx, msg);
-            }
-        };
-        serverPlayer.connection.connection.channel.pipeline().addBefore("packet_handler", bukkitPlayer.getName(), handler);
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPlayerQuit(PlayerQuitEvent event) {
+        setPlayer(event.getPlayer(), null);
     }
 
 }
@@ -0,0 +1,280 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.google.common.base.Preconditions;
+import com.shanebeestudios.coreapi.util.McUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import net.minecraft.network.CompressionEncoder;
+import net.minecraft.network.Connection;
+import net.minecraft.network.ProtocolInfo;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.VarInt;
+import net.minecraft.network.protocol.BundlePacket;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundBundleDelimiterPacket;
+import net.minecraft.network.protocol.game.GameProtocols;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.Deflater;
+
+/**
+ * Send the same packet to many players while encoding it only once
+ * <p>The packet is encoded (and compressed) once into complete frames, each player's connection
+ * is then written a retained duplicate of those frames. Only encryption still happens per connection.</p>
+ * <p>As the packet is only encoded once, it should not depend on the player it is sent to.</p>
+ * <p>Frames are written past the raw packet handler and the {@link PacketChannelHandler},
+ * so {@link PacketCapture} and {@link PacketMetrics} don't see broadcast packets,
+ * and they may overtake clientbound packets still waiting behind an async {@link PacketHandler}.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketBroadcaster {
+
+    private static final String PREPENDER = "prepender";
+    private static final String COMPRESS = "compress";
+    // Max frame size the client's splitter accepts, a 3 byte VarInt
+    private static final int MAX_FRAME_SIZE = 2097151;
+    private static volatile ProtocolInfo<ClientGamePacketListener> PROTOCOL;
+
+    private PacketBroadcaster() {
+    }
+
+    /**
+     * Broadcast a packet to all online players
+     * <p>This skips {@link PacketHandler packet handlers}, raw filters and packet events.</p>
+     *
+     * @param packet Packet to broadcast
+     */
+    public static void broadcast(@NotNull Packet<? super ClientGamePacketListener> packet) {
+        broadcast(Bukkit.getOnlinePlayers(), packet, false);
+    }
+
+    /**
+     * Broadcast a packet to players
+     * <p>This skips {@link PacketHandler packet handlers}, raw filters and packet events.</p>
+     *
+     * @param players Players to send the packet to
+     * @param packet  Packet to broadcast
+     */
+    public static void broadcast(@NotNull Collection<? extends Player> players, @NotNull Packet<? super ClientGamePacketListener> packet) {
+        broadcast(players, packet, false);
+    }
+
+    /**
+     * Broadcast a packet to players
+     * <p>If intercepting and anything in the {@link PacketRegistry} handles this packet
+     * (handlers, bundle handlers, subscribed events or clientbound raw filters),
+     * the packet is sent to each player the normal way instead, so it can still be changed or cancelled per player.</p>
+     *
+     * @param players   Players to send the packet to
+     * @param packet    Packet to broadcast
+     * @param intercept Whether to respect handlers of this packet
+     */
+    public static void broadcast(@NotNull Collection<? extends Player> players, @NotNull Packet<? super ClientGamePacketListener> packet,
+                                 boolean intercept) {
+        Preconditions.checkArgument(players != null, "Players cannot be null");
+        Preconditions.checkArgument(packet != null, "Packet cannot be null");
+        if (players.isEmpty()) return;
+
+        List<Connection> connections = new ArrayList<>(players.size());
+        for (Player player : players) {
+            ServerPlayer serverPlayer = McUtils.getServerPlayer(player);
+            // Game packets can only be sent while the connection is in the game protocol
+            if (serverPlayer.connection == null || serverPlayer.connection.connection.getPacketListener() != serverPlayer.connection) continue;
+            Connection connection = serverPlayer.connection.connection;
+            if (connection.isConnected()) connections.add(connection);
+        }
+        if (connections.isEmpty()) return;
+
+        if (connections.size() == 1 || (intercept && isIntercepted(packet))) {
+            connections.forEach(connection -> connection.send(packet));
+            return;
+        }
+
+        ByteBuf[] frames = encode(packet);
+        if (frames == null) {
+            // Too large to send as a single frame, let the connections deal with it
+            connections.forEach(connection -> connection.send(packet));
+            return;
+        }
+        // Frames per compression threshold, -1 being uncompressed
+        Map<Integer, ByteBuf[]> framed = new HashMap<>();
+        try {
+            for (Connection connection : connections) {
+                Channel channel = connection.channel;
+                ChannelHandlerContext prepender = channel.pipeline().context(PREPENDER);
+                if (prepender == null) {
+                    connection.send(packet);
+                    continue;
+                }
+                int threshold = channel.pipeline().get(COMPRESS) instanceof CompressionEncoder encoder ? encoder.getThreshold() : -1;
+                ByteBuf[] channelFrames = framed.computeIfAbsent(threshold, t -> frame(frames, t));
+                ByteBuf[] duplicates = new ByteBuf[channelFrames.length];
+                for (int i = 0; i < channelFrames.length; i++) {
+                    duplicates[i] = channelFrames[i].retainedDuplicate();
+                }
+                // Queued on the event loop, so it keeps its order with packets already written the normal way
+                try {
+                    channel.eventLoop().execute(() -> write(channel, prepender, duplicates));
+                } catch (RejectedExecutionException ignore) {
+                    // Event loop is shutting down, the connection is gone anyway
+                    release(duplicates);
+                }
+            }
+        } finally {
+            release(frames);
+            framed.values().forEach(PacketBroadcaster::release);
+        }
+    }
+
+    private static boolean isIntercepted(Packet<?> packet) {
+        if (!PacketRegistry.getDispatch(PacketDirection.CLIENTBOUND, packet.getClass()).isEmpty()) return true;
+        if (!PacketRegistry.getRawFilterTable(PacketDirection.CLIENTBOUND).isEmpty()) return true;
+        if (packet instanceof BundlePacket<?> bundlePacket) {
+            for (Packet<?> subPacket : bundlePacket.subPackets()) {
+                if (!PacketRegistry.getDispatch(PacketDirection.CLIENTBOUND, subPacket.getClass()).isEmpty()) return true;
+            }
+        }
+        return false;
+    }
+
+    private static void write(Channel channel, ChannelHandlerContext prepender, ByteBuf[] frames) {
+        if (!channel.isActive() || prepender.isRemoved()) {
+            release(frames);
+            return;
+        }
+        // Written past the prepender, the frames already have their length
+        for (ByteBuf frame : frames) {
+            prepender.write(frame, prepender.voidPromise());
+        }
+        // Flushed from the tail, so flush consolidation still applies
+        channel.flush();
+    }
+
+    private static ProtocolInfo<ClientGamePacketListener> getProtocol() {
+        ProtocolInfo<ClientGamePacketListener> protocol = PROTOCOL;
+        if (protocol == null) {
+            protocol = GameProtocols.CLIENTBOUND_TEMPLATE.bind(RegistryFriendlyByteBuf.decorator(MinecraftServer.getServer().registryAccess()));
+            PROTOCOL = protocol;
+        }
+        return protocol;
+    }
+
+    /**
+     * Encode a packet into packet id + data buffers, one per packet sent on the wire
+     * <p>Bundles are split up the same way the unbundler does.</p>
+     *
+     * @return Encoded packets, or null if one is too large for a frame
+     */
+    @SuppressWarnings("unchecked")
+    private static ByteBuf[] encode(Packet<? super ClientGamePacketListener> packet) {
+        List<Packet<? super ClientGamePacketListener>> packets = new ArrayList<>();
+        if (packet instanceof BundlePacket<?> bundlePacket) {
+            Packet<? super ClientGamePacketListener> delimiter = new ClientboundBundleDelimiterPacket();
+            packets.add(delimiter);
+            for (Packet<?> subPacket : bundlePacket.subPackets()) {
+                packets.add((Packet<? super ClientGamePacketListener>) subPacket);
+            }
+            packets.add(delimiter);
+        } else {
+            packets.add(packet);
+        }
+
+        ProtocolInfo<ClientGamePacketListener> protocol = getProtocol();
+        ByteBuf[] encoded = new ByteBuf[packets.size()];
+        try {
+            for (int i = 0; i < encoded.length; i++) {
+                ByteBuf buffer = ByteBufAllocator.DEFAULT.buffer();
+                encoded[i] = buffer;
+                protocol.codec().encode(buffer, packets.get(i));
+                if (buffer.readableBytes() > MAX_FRAME_SIZE) {
+                    release(encoded);
+                    return null;
+                }
+            }
+        } catch (Throwable throwable) {
+            release(encoded);
+            throw throwable;
+        }
+        return encoded;
+    }
+
+    /**
+     * Turn encoded packets into frames the way the compressor and prepender would
+     *
+     * @param encoded   Encoded packets
+     * @param threshold Compression threshold of the connection, -1 if not compressed
+     * @return Frames ready to be written past the prepender, the encoded packets are not released
+     */
+    private static ByteBuf[] frame(ByteBuf[] encoded, int threshold) {
+        ByteBuf[] frames = new ByteBuf[encoded.length];
+        Deflater deflater = threshold >= 0 ? new Deflater() : null;
+        try {
+            for (int i = 0; i < encoded.length; i++) {
+                ByteBuf data = encoded[i];
+                ByteBuf payload = threshold < 0 ? data.retainedDuplicate() : compress(deflater, data, threshold);
+                try {
+                    int length = payload.readableBytes();
+                    ByteBuf frame = ByteBufAllocator.DEFAULT.buffer(VarInt.getByteSize(length) + length);
+                    frames[i] = frame;
+                    VarInt.write(frame, length);
+                    frame.writeBytes(payload);
+                } finally {
+                    payload.release();
+                }
+            }
+        } catch (Throwable throwable) {
+            release(frames);
+            throw throwable;
+        } finally {
+            if (deflater != null) deflater.end();
+        }
+        return frames;
+    }
+
+    private static ByteBuf compress(Deflater deflater, ByteBuf data, int threshold) {
+        int length = data.readableBytes();
+        ByteBuf payload = ByteBufAllocator.DEFAULT.buffer(length + 5);
+        try {
+            if (length < threshold) {
+                VarInt.write(payload, 0);
+                payload.writeBytes(data, data.readerIndex(), length);
+                return payload;
+            }
+            VarInt.write(payload, length);
+            deflater.reset();
+            deflater.setInput(data.nioBuffer());
+            deflater.finish();
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(chunk);
+                payload.writeBytes(chunk, 0, written);
+            }
+        } catch (Throwable throwable) {
+            payload.release();
+            throw throwable;
+        }
+        return payload;
+    }
+
+    private static void release(ByteBuf[] buffers) {
+        for (ByteBuf buffer : buffers) {
+            if (buffer != null) buffer.release();
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.google.common.base.Preconditions;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Mutable view of the sub-packets of a {@link ClientboundBundlePacket}
+ * <p>The bundle is only rebuilt if one of the {@link PacketBundleHandler bundle handlers} modified it.
+ * Instances are reused per connection, do not keep a reference after your handler returns.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketBundle {
+
+    private final List<Packet<? super ClientGamePacketListener>> packets = new ArrayList<>();
+    private final List<Packet<? super ClientGamePacketListener>> view = Collections.unmodifiableList(this.packets);
+    private boolean modified;
+
+    PacketBundle() {
+    }
+
+    void reset(ClientboundBundlePacket bundlePacket) {
+        this.packets.clear();
+        for (Packet<? super ClientGamePacketListener> packet : bundlePacket.subPackets()) {
+            this.packets.add(packet);
+        }
+        this.modified = false;
+    }
+
+    void clear() {
+        this.packets.clear();
+    }
+
+    ClientboundBundlePacket build() {
+        return new ClientboundBundlePacket(new ArrayList<>(this.packets));
+    }
+
+    /**
+     * Get the amount of packets in this bundle
+     *
+     * @return Amount of packets
+     */
+    public int size() {
+        return this.packets.size();
+    }
+
+    /**
+     * Check if this bundle is empty
+     * <p>An empty bundle will not be sent.</p>
+     *
+     * @return True if empty
+     */
+    public boolean isEmpty() {
+        return this.packets.isEmpty();
+    }
+
+    /**
+     * Get a packet from this bundle
+     *
+     * @param index Index of packet
+     * @return Packet at index
+     */
+    public @NotNull Packet<? super ClientGamePacketListener> get(int index) {
+        return this.packets.get(index);
+    }
+
+    /**
+     * Replace a packet in this bundle
+     *
+     * @param index  Index of packet to replace
+     * @param packet Packet to replace with
+     */
+    public void set(int index, @NotNull Packet<? super ClientGamePacketListener> packet) {
+        Preconditions.checkArgument(packet != null, "Packet cannot be null");
+        if (this.packets.set(index, packet) != packet) this.modified = true;
+    }
+
+    /**
+     * Add a packet to the end of this bundle
+     *
+     * @param packet Packet to add
+     */
+    public void add(@NotNull Packet<? super ClientGamePacketListener> packet) {
+        Preconditions.checkArgument(packet != null, "Packet cannot be null");
+        this.packets.add(packet);
+        this.modified = true;
+    }
+
+    /**
+     * Remove a packet from this bundle
+     *
+     * @param index Index of packet to remove
+     */
+    public void remove(int index) {
+        this.packets.remove(index);
+        this.modified = true;
+    }
+
+    /**
+     * Remove all packets matching a filter from this bundle
+     *
+     * @param filter Filter of packets to remove
+     * @return True if any packets were removed
+     */
+    public boolean removeIf(@NotNull Predicate<Packet<? super ClientGamePacketListener>> filter) {
+        Preconditions.checkArgument(filter != null, "Filter cannot be null");
+        boolean removed = this.packets.removeIf(filter);
+        if (removed) this.modified = true;
+        return removed;
+    }
+
+    /**
+     * Get an unmodifiable view of the packets in this bundle
+     *
+     * @return Packets in bundle
+     */
+    public @NotNull List<Packet<? super ClientGamePacketListener>> getPackets() {
+        return this.view;
+    }
+
+    /**
+     * Check if this bundle was modified by a handler
+     *
+     * @return True if modified
+     */
+    public boolean isModified() {
+        return this.modified;
+    }
+
+}
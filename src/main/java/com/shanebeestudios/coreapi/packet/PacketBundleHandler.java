@@ -0,0 +1,28 @@
+package com.shanebeestudios.coreapi.packet;
+
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventPriority;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Handler for the sub-packets of a {@link ClientboundBundlePacket}
+ * <p>Handlers are registered with {@link PacketRegistry#registerBundleHandler(Plugin, EventPriority, PacketBundleHandler)}.
+ * All bundle handlers share one {@link PacketBundle} per bundle packet, which is only rebuilt if a handler modified it.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@FunctionalInterface
+public interface PacketBundleHandler {
+
+    /**
+     * Handle the packets of a bundle
+     *
+     * @param player Player receiving the bundle, null before the player has joined
+     * @param bundle Packets of bundle
+     */
+    void handle(@Nullable Player player, @NotNull PacketBundle bundle);
+
+}
@@ -0,0 +1,57 @@
+package com.shanebeestudios.coreapi.packet;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventPriority;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a {@link PacketBundleHandler} registered in the {@link PacketRegistry}
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketBundleHandlerRegistration {
+
+    private final Plugin plugin;
+    private final EventPriority priority;
+    private final PacketBundleHandler handler;
+
+    PacketBundleHandlerRegistration(Plugin plugin, EventPriority priority, PacketBundleHandler handler) {
+        this.plugin = plugin;
+        this.priority = priority;
+        this.handler = handler;
+    }
+
+    /**
+     * Get the plugin which registered the handler
+     *
+     * @return Plugin which registered the handler
+     */
+    public @NotNull Plugin getPlugin() {
+        return this.plugin;
+    }
+
+    /**
+     * Get the priority of the handler
+     *
+     * @return Priority of handler
+     */
+    public @NotNull EventPriority getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * Get the handler
+     *
+     * @return Handler
+     */
+    public @NotNull PacketBundleHandler getHandler() {
+        return this.handler;
+    }
+
+    void handle(Player player, PacketBundle bundle) {
+        this.handler.handle(player, bundle);
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.google.common.base.Preconditions;
+import io.netty.buffer.ByteBuf;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Recorder which appends encoded packets to memory mapped segment files
+ * <p>Each segment starts with a header (magic, version, capture start in epoch millis),
+ * followed by records of length, nanos since the start, direction, player id and the packet id + data.
+ * Netty threads reserve space in the current segment with a single atomic add,
+ * and the length of a record is written last, so a zero length marks the end of a segment.</p>
+ * <p>Segments keep their full size on disk, the unused tail is zeroed.</p>
+ */
+@ApiStatus.Internal
+public final class PacketCapture {
+
+    static final int MAGIC = 0x43504B54;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    // length, nanos, direction, player most/least significant bits
+    static final int RECORD_HEADER_SIZE = 4 + 8 + 1 + 8 + 8;
+    static final String SEGMENT_PREFIX = "capture-";
+    static final String SEGMENT_SUFFIX = ".bin";
+
+    static final LongAdder RECORDED = new LongAdder();
+    static final LongAdder DROPPED = new LongAdder();
+    private static volatile PacketCapture CAPTURE;
+
+    /**
+     * Start capturing packets
+     *
+     * @param directory   Directory to write segments to
+     * @param segmentSize Size of each segment in bytes
+     * @throws IOException If the first segment could not be created
+     * @hidden internal
+     */
+    public static synchronized void start(@NotNull Path directory, int segmentSize) throws IOException {
+        Preconditions.checkArgument(directory != null, "Directory cannot be null");
+        Preconditions.checkArgument(segmentSize > HEADER_SIZE + RECORD_HEADER_SIZE, "Segment size is too small");
+        if (CAPTURE != null) throw new IllegalStateException("Already capturing packets!");
+        Files.createDirectories(directory);
+        CAPTURE = new PacketCapture(directory, segmentSize);
+    }
+
+    /**
+     * Stop capturing packets and force all segments to disk
+     *
+     * @hidden internal
+     */
+    public static synchronized void stop() {
+        PacketCapture capture = CAPTURE;
+        if (capture == null) return;
+        CAPTURE = null;
+        capture.close();
+    }
+
+    /**
+     * Check whether packets are being captured
+     *
+     * @return True if capturing
+     * @hidden internal
+     */
+    public static boolean isCapturing() {
+        return CAPTURE != null;
+    }
+
+    /**
+     * Record an encoded packet, without moving the buffer's reader index
+     */
+    static void record(PacketDirection direction, Player player, ByteBuf buffer) {
+        PacketCapture capture = CAPTURE;
+        if (capture != null) capture.write(direction, player.getUniqueId(), buffer);
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long startNanos = System.nanoTime();
+    private final long startMillis = System.currentTimeMillis();
+    private final List<Segment> segments = new ArrayList<>();
+    private volatile Segment segment;
+
+    private PacketCapture(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segment = openSegment();
+    }
+
+    private void write(PacketDirection direction, UUID uuid, ByteBuf buffer) {
+        int length = buffer.readableBytes();
+        int size = RECORD_HEADER_SIZE + length;
+        if (length == 0 || size > this.segmentSize - HEADER_SIZE) {
+            DROPPED.increment();
+            return;
+        }
+        while (true) {
+            Segment segment = this.segment;
+            if (segment == null) {
+                DROPPED.increment();
+                return;
+            }
+            int offset = segment.position.getAndAdd(size);
+            // Once one reservation runs past the end, all later ones do too
+            if (offset >= 0 && offset + size <= this.segmentSize) {
+                MappedByteBuffer map = segment.map;
+                map.putLong(offset + 4, System.nanoTime() - this.startNanos);
+                map.put(offset + 12, (byte) direction.ordinal());
+                map.putLong(offset + 13, uuid.getMostSignificantBits());
+                map.putLong(offset + 21, uuid.getLeastSignificantBits());
+                buffer.getBytes(buffer.readerIndex(), map.slice(offset + RECORD_HEADER_SIZE, length));
+                map.putInt(offset, length);
+                RECORDED.increment();
+                return;
+            }
+            roll(segment);
+        }
+    }
+
+    private synchronized void roll(Segment full) {
+        if (this.segment != full) return;
+        try {
+            this.segment = openSegment();
+        } catch (IOException e) {
+            Bukkit.getLogger().log(Level.SEVERE, "Could not create packet capture segment, stopping capture", e);
+            this.segment = null;
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        Path path = this.directory.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, this.segments.size(), SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the file channel is closed
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+            map.putInt(0, MAGIC);
+            map.putInt(4, VERSION);
+            map.putLong(8, this.startMillis);
+            Segment segment = new Segment(map);
+            this.segments.add(segment);
+            return segment;
+        }
+    }
+
+    private synchronized void close() {
+        this.segment = null;
+        // Threads still in the middle of a record write to the mapping, which is forced afterwards by the OS
+        for (Segment segment : this.segments) {
+            segment.map.force();
+        }
+    }
+
+    private static final class Segment {
+
+        private final MappedByteBuffer map;
+        private final AtomicInteger position = new AtomicInteger(HEADER_SIZE);
+
+        private Segment(MappedByteBuffer map) {
+            this.map = map;
+        }
+
+    }
+
+}
@@ -0,0 +1,351 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.google.common.base.Preconditions;
+import com.shanebeestudios.coreapi.event.PacketClientboundEvent;
+import com.shanebeestudios.coreapi.event.PacketEvent;
+import com.shanebeestudios.coreapi.event.PacketServerboundEvent;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+
+/**
+ * Netty handler which passes packets to {@link PacketHandler packet handlers} and {@link PacketEvent packet events}
+ * <p>A single instance is shared by all channels, the player and any other state is held in a channel attribute.</p>
+ * <p>Packets with async handlers are handled on the event loop up to the first async handler,
+ * the rest of their handlers run on the async executor. Later packets of the same channel and direction
+ * wait in a queue until the packet is done, so ordering is preserved.</p>
+ */
+@ApiStatus.Internal
+@ChannelHandler.Sharable
+public class PacketChannelHandler extends ChannelDuplexHandler {
+
+    /**
+     * Shared instance of the handler
+     */
+    public static final PacketChannelHandler INSTANCE = new PacketChannelHandler();
+
+    private static volatile boolean REUSE_EVENTS = false;
+    private static volatile Executor ASYNC_EXECUTOR;
+    private static volatile int MAX_PENDING_PACKETS = 256;
+
+    private PacketChannelHandler() {
+    }
+
+    /**
+     * Set the player of a channel
+     *
+     * @param channel Channel of player
+     * @param player  Player to set, null to clear
+     * @hidden internal
+     */
+    public static void setPlayer(@NotNull Channel channel, @Nullable Player player) {
+        PacketChannelState.get(channel).player = player;
+    }
+
+    /**
+     * Set whether packet events should be reused per channel
+     *
+     * @param reuseEvents Whether to reuse events
+     * @hidden internal
+     */
+    public static void setReuseEvents(boolean reuseEvents) {
+        REUSE_EVENTS = reuseEvents;
+    }
+
+    /**
+     * Check whether packet events are reused per channel
+     *
+     * @return True if events are reused
+     * @hidden internal
+     */
+    public static boolean isReuseEvents() {
+        return REUSE_EVENTS;
+    }
+
+    /**
+     * Set the executor async handlers run on
+     *
+     * @param executor Executor to use
+     * @hidden internal
+     */
+    public static void setAsyncExecutor(@NotNull Executor executor) {
+        Preconditions.checkArgument(executor != null, "Executor cannot be null");
+        ASYNC_EXECUTOR = executor;
+    }
+
+    /**
+     * Set the max amount of serverbound packets waiting per channel before reading is paused
+     *
+     * @param maxPendingPackets Max amount of waiting packets
+     * @hidden internal
+     */
+    public static void setMaxPendingPackets(int maxPendingPackets) {
+        Preconditions.checkArgument(maxPendingPackets > 0, "Max pending packets must be greater than 0");
+        MAX_PENDING_PACKETS = maxPendingPackets;
+    }
+
+    private static Executor getAsyncExecutor() {
+        Executor executor = ASYNC_EXECUTOR;
+        if (executor == null) {
+            synchronized (PacketChannelHandler.class) {
+                executor = ASYNC_EXECUTOR;
+                if (executor == null) {
+                    executor = Executors.newVirtualThreadPerTaskExecutor();
+                    ASYNC_EXECUTOR = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        PacketChannelState.get(ctx.channel());
+    }
+
+    @Override
+    public void channelInactive(@NotNull ChannelHandlerContext ctx) throws Exception {
+        // Waiting packets would otherwise never be released and their promises never completed
+        PacketChannelState state = PacketChannelState.get(ctx.channel());
+        for (PacketDirection direction : PacketDirection.values()) {
+            PacketQueue queue = state.getQueue(direction);
+            if (queue != null) queue.close();
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof Packet<?> packet) {
+            handlePacket(ctx, PacketDirection.CLIENTBOUND, packet, promise);
+            return;
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    @Override
+    public void channelRead(@NotNull ChannelHandlerContext ctx, @NotNull Object msg) throws Exception {
+        if (msg instanceof Packet<?> packet) {
+            if (!PacketRateLimiter.tryAcquire(ctx, PacketChannelState.get(ctx.channel()), packet)) return;
+            handlePacket(ctx, PacketDirection.SERVERBOUND, packet, null);
+            return;
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    private static void handlePacket(ChannelHandlerContext ctx, PacketDirection direction, Packet<?> packet, ChannelPromise promise) {
+        PacketChannelState state = PacketChannelState.get(ctx.channel());
+        PacketDispatch dispatch = PacketRegistry.getDispatch(direction, packet.getClass());
+        PacketStats stats = null;
+        if (PacketMetrics.isEnabled()) {
+            stats = PacketMetrics.getOrCreateStats(direction, packet.getClass());
+            if (direction == PacketDirection.SERVERBOUND) {
+                stats.addBytes(state.readBytes);
+                state.readBytes = 0;
+            }
+        }
+
+        PacketQueue queue = state.getQueue(direction);
+        if (dispatch.asyncIndex() >= 0 || (queue != null && !queue.isEmpty())) {
+            queue = state.getOrCreateQueue(direction);
+            if (queue.closed) {
+                PacketQueue.drop(packet, promise);
+                return;
+            }
+            queue.entries.add(new PacketQueue.Entry(packet, promise, dispatch, stats));
+            if (direction == PacketDirection.SERVERBOUND && !queue.paused && queue.entries.size() > MAX_PENDING_PACKETS) {
+                // Stop reading from the client until the queue has caught up
+                queue.paused = true;
+                ctx.channel().config().setAutoRead(false);
+            }
+            drain(ctx, state, queue);
+            return;
+        }
+
+        Packet<?> result = packet;
+        if (!dispatch.isEmpty()) {
+            long start = stats != null ? System.nanoTime() : 0;
+            result = dispatch(direction, dispatch, state, packet, 0, dispatch.handlers().length, true, true);
+            if (stats != null) stats.record(System.nanoTime() - start, result == null, result != packet);
+        } else if (stats != null) {
+            stats.record(0, false, false);
+        }
+        if (result != null) forward(ctx, state, direction, result, promise, stats);
+    }
+
+    private static void drain(ChannelHandlerContext ctx, PacketChannelState state, PacketQueue queue) {
+        if (queue.draining) return;
+        queue.draining = true;
+        boolean forwarded = false;
+        try {
+            while (!queue.inFlight && !queue.isEmpty()) {
+                PacketQueue.Entry entry = queue.entries.peek();
+                PacketDispatch dispatch = entry.dispatch;
+                int asyncIndex = dispatch.asyncIndex();
+                long start = System.nanoTime();
+                if (asyncIndex < 0) {
+                    // Only waited for an earlier packet, handle it completely right here
+                    queue.entries.poll();
+                    Packet<?> result = dispatch.isEmpty() ? entry.packet :
+                        dispatch(queue.direction, dispatch, state, entry.packet, 0, dispatch.handlers().length, true, true);
+                    if (entry.stats != null) entry.stats.record(System.nanoTime() - start, result == null, result != entry.packet);
+                    if (result != null) {
+                        forward(ctx, state, queue.direction, result, entry.promise, entry.stats);
+                        forwarded = true;
+                    }
+                    continue;
+                }
+
+                Packet<?> current = dispatch(queue.direction, dispatch, state, entry.packet, 0, asyncIndex, false, true);
+                entry.nanos = System.nanoTime() - start;
+                if (current == null) {
+                    queue.entries.poll();
+                    if (entry.stats != null) entry.stats.record(entry.nanos, true, false);
+                    continue;
+                }
+                queue.inFlight = true;
+                Runnable task = () -> {
+                    long asyncStart = System.nanoTime();
+                    Packet<?> result = dispatch(queue.direction, dispatch, state, current, asyncIndex, dispatch.handlers().length, true, false);
+                    entry.nanos += System.nanoTime() - asyncStart;
+                    ctx.channel().eventLoop().execute(() -> complete(ctx, state, queue, entry, result));
+                };
+                try {
+                    getAsyncExecutor().execute(task);
+                } catch (RejectedExecutionException ignore) {
+                    // A bounded executor is full, handle it on the event loop rather than losing the packet
+                    task.run();
+                }
+            }
+        } finally {
+            queue.draining = false;
+        }
+        if (queue.direction == PacketDirection.SERVERBOUND && queue.paused && queue.entries.size() <= MAX_PENDING_PACKETS / 2) {
+            queue.paused = false;
+            // A throttling rate limit resumes reading itself
+            if (!state.rateLimitThrottled && !state.rateLimitKicked) ctx.channel().config().setAutoRead(true);
+        }
+        // The original flush has already passed while these packets were waiting
+        if (forwarded && queue.direction == PacketDirection.CLIENTBOUND) ctx.flush();
+    }
+
+    private static void complete(ChannelHandlerContext ctx, PacketChannelState state, PacketQueue queue, PacketQueue.Entry entry, Packet<?> result) {
+        if (queue.closed) {
+            // The entry was already dropped when the channel closed
+            if (result != null && result != entry.packet) ReferenceCountUtil.release(result);
+            return;
+        }
+        queue.entries.poll();
+        queue.inFlight = false;
+        if (entry.stats != null) entry.stats.record(entry.nanos, result == null, result != entry.packet);
+        if (result != null) {
+            forward(ctx, state, queue.direction, result, entry.promise, entry.stats);
+            if (queue.direction == PacketDirection.CLIENTBOUND) ctx.flush();
+        }
+        drain(ctx, state, queue);
+    }
+
+    private static void forward(ChannelHandlerContext ctx, PacketChannelState state, PacketDirection direction, Packet<?> packet,
+                                ChannelPromise promise, PacketStats stats) {
+        if (direction == PacketDirection.SERVERBOUND) {
+            ctx.fireChannelRead(packet);
+            return;
+        }
+        if (stats == null) {
+            ctx.write(packet, promise);
+            return;
+        }
+        // Writing is synchronous up to the encoder, which lets the raw handler attribute the encoded size to this packet
+        PacketStats previous = state.writingStats;
+        state.writingStats = stats;
+        try {
+            ctx.write(packet, promise);
+        } finally {
+            state.writingStats = previous;
+        }
+    }
+
+    /**
+     * Pass a packet to a range of handlers, and optionally the bundle handlers and event
+     * <p>Pooled events/bundles are only used on the event loop, the async part always creates new ones.</p>
+     */
+    private static Packet<?> dispatch(PacketDirection direction, PacketDispatch dispatch, PacketChannelState state, Packet<?> packet,
+                                      int from, int to, boolean complete, boolean onEventLoop) {
+        Player player = state.player;
+        Packet<?> current = packet;
+        PacketHandlerRegistration[] handlers = dispatch.handlers();
+        for (int i = from; i < to; i++) {
+            PacketHandlerRegistration registration = handlers[i];
+            // A previous handler may have replaced the packet with one this handler does not accept
+            if (current.getClass() != dispatch.packetClass() && !registration.getPacketClass().isInstance(current)) continue;
+            try {
+                current = PacketWatchdog.isEnabled() ? PacketWatchdog.handle(registration, player, current) : registration.handle(player, current);
+            } catch (Throwable throwable) {
+                registration.getPlugin().getLogger().log(Level.SEVERE,
+                    "Could not pass packet " + current.getClass().getSimpleName() + " to handler", throwable);
+            }
+            if (current == null) return null;
+        }
+        if (!complete) return current;
+        if (dispatch.bundleHandlers().length > 0 && current instanceof ClientboundBundlePacket bundlePacket) {
+            current = dispatchBundle(dispatch.bundleHandlers(), state, player, bundlePacket, onEventLoop);
+            if (current == null) return null;
+        }
+        // Events require a player, so they are only called once the player has joined
+        if (dispatch.callEvent() && player != null) {
+            if (REUSE_EVENTS && onEventLoop) {
+                PacketEvent packetEvent = state.acquireEvent(direction, current, player);
+                try {
+                    current = callEvent(packetEvent) ? packetEvent.getPacket() : null;
+                } finally {
+                    state.releaseEvent(packetEvent);
+                }
+            } else {
+                PacketEvent packetEvent = direction == PacketDirection.CLIENTBOUND ?
+                    new PacketClientboundEvent(current, player) : new PacketServerboundEvent(current, player);
+                if (!callEvent(packetEvent)) return null;
+                current = packetEvent.getPacket();
+            }
+        }
+        return current;
+    }
+
+    private static boolean callEvent(PacketEvent event) {
+        return PacketWatchdog.isEnabled() ? PacketWatchdog.callEvent(event) : event.callEvent();
+    }
+
+    private static Packet<?> dispatchBundle(PacketBundleHandlerRegistration[] handlers, PacketChannelState state, Player player,
+                                            ClientboundBundlePacket bundlePacket, boolean onEventLoop) {
+        PacketBundle bundle = onEventLoop ? state.acquireBundle(bundlePacket) : new PacketBundle();
+        if (!onEventLoop) bundle.reset(bundlePacket);
+        try {
+            for (PacketBundleHandlerRegistration registration : handlers) {
+                try {
+                    if (PacketWatchdog.isEnabled()) PacketWatchdog.handle(registration, player, bundle);
+                    else registration.handle(player, bundle);
+                } catch (Throwable throwable) {
+                    registration.getPlugin().getLogger().log(Level.SEVERE, "Could not pass bundle packet to handler", throwable);
+                }
+            }
+            if (!bundle.isModified()) return bundlePacket;
+            return bundle.isEmpty() ? null : bundle.build();
+        } finally {
+            if (onEventLoop) state.releaseBundle(bundle);
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.shanebeestudios.coreapi.event.PacketClientboundEvent;
+import com.shanebeestudios.coreapi.event.PacketEvent;
+import com.shanebeestudios.coreapi.event.PacketServerboundEvent;
+import io.netty.channel.Channel;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+
+/**
+ * State of a single intercepted channel
+ * <p>Apart from the player, everything in here is only touched from the event loop of the channel.</p>
+ */
+final class PacketChannelState {
+
+    private static final AttributeKey<PacketChannelState> KEY = AttributeKey.valueOf(PacketChannelState.class, "state");
+
+    static PacketChannelState get(Channel channel) {
+        Attribute<PacketChannelState> attribute = channel.attr(KEY);
+        PacketChannelState state = attribute.get();
+        if (state == null) {
+            state = new PacketChannelState();
+            PacketChannelState existing = attribute.setIfAbsent(state);
+            if (existing != null) state = existing;
+        }
+        return state;
+    }
+
+    volatile Player player;
+
+    /**
+     * Size of the last frame read, picked up by the packet handler for metrics
+     */
+    int readBytes;
+
+    /**
+     * Metrics of the packet currently being written, used to attribute encoded bytes
+     */
+    PacketStats writingStats;
+
+    /**
+     * Packets waiting on async handlers, created when first needed
+     */
+    PacketQueue clientboundQueue;
+    PacketQueue serverboundQueue;
+
+    /**
+     * Token buckets of rate limits, indexed by limit
+     * <p>Indexes are reused by later limits, a bucket belongs to the limit it was last used for.</p>
+     */
+    PacketRateLimit[] rateOwners = new PacketRateLimit[0];
+    double[] rateTokens = new double[0];
+    long[] rateNanos = new long[0];
+    boolean rateLimitThrottled;
+    boolean rateLimitKicked;
+
+    private PacketClientboundEvent clientboundEvent;
+    private PacketServerboundEvent serverboundEvent;
+    private boolean clientboundEventInUse;
+    private boolean serverboundEventInUse;
+    private PacketBundle bundle;
+    private boolean bundleInUse;
+
+    private PacketChannelState() {
+    }
+
+    PacketQueue getQueue(PacketDirection direction) {
+        return direction == PacketDirection.CLIENTBOUND ? this.clientboundQueue : this.serverboundQueue;
+    }
+
+    PacketQueue getOrCreateQueue(PacketDirection direction) {
+        if (direction == PacketDirection.CLIENTBOUND) {
+            if (this.clientboundQueue == null) this.clientboundQueue = new PacketQueue(direction);
+            return this.clientboundQueue;
+        } else {
+            if (this.serverboundQueue == null) this.serverboundQueue = new PacketQueue(direction);
+            return this.serverboundQueue;
+        }
+    }
+
+    void ensureRateBuckets(int size) {
+        if (this.rateTokens.length >= size) return;
+        this.rateOwners = Arrays.copyOf(this.rateOwners, size);
+        this.rateTokens = Arrays.copyOf(this.rateTokens, size);
+        this.rateNanos = Arrays.copyOf(this.rateNanos, size);
+    }
+
+    /**
+     * Get an event for a packet, reusing the event of this channel if it is not currently in use
+     * <p>A handler sending a packet to the same player while handling an event would re-enter here,
+     * in which case a new event is created.</p>
+     */
+    PacketEvent acquireEvent(PacketDirection direction, Packet<?> packet, Player player) {
+        if (direction == PacketDirection.CLIENTBOUND) {
+            if (this.clientboundEventInUse) return new PacketClientboundEvent(packet, player);
+            this.clientboundEventInUse = true;
+            if (this.clientboundEvent == null) {
+                this.clientboundEvent = new PacketClientboundEvent(packet, player);
+            } else {
+                PacketEventAccess.getAccess().reset(this.clientboundEvent, packet, player);
+            }
+            return this.clientboundEvent;
+        } else {
+            if (this.serverboundEventInUse) return new PacketServerboundEvent(packet, player);
+            this.serverboundEventInUse = true;
+            if (this.serverboundEvent == null) {
+                this.serverboundEvent = new PacketServerboundEvent(packet, player);
+            } else {
+                PacketEventAccess.getAccess().reset(this.serverboundEvent, packet, player);
+            }
+            return this.serverboundEvent;
+        }
+    }
+
+    PacketBundle acquireBundle(ClientboundBundlePacket bundlePacket) {
+        PacketBundle bundle;
+        if (this.bundleInUse) {
+            bundle = new PacketBundle();
+        } else {
+            if (this.bundle == null) this.bundle = new PacketBundle();
+            this.bundleInUse = true;
+            bundle = this.bundle;
+        }
+        bundle.reset(bundlePacket);
+        return bundle;
+    }
+
+    void releaseBundle(PacketBundle bundle) {
+        if (bundle == this.bundle) {
+            bundle.clear();
+            this.bundleInUse = false;
+        }
+    }
+
+    void releaseEvent(PacketEvent event) {
+        if (event == this.clientboundEvent) {
+            // Drop references so packets aren't kept alive by an idle channel
+            PacketEventAccess.getAccess().reset(event, null, null);
+            this.clientboundEventInUse = false;
+        } else if (event == this.serverboundEvent) {
+            PacketEventAccess.getAccess().reset(event, null, null);
+            this.serverboundEventInUse = false;
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.shanebeestudios.coreapi.packet;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Direction a packet is travelling
+ */
+@ApiStatus.AvailableSince("1.2.0")
+public enum PacketDirection {
+
+    /**
+     * Packets sent from the server to a client
+     */
+    CLIENTBOUND,
+
+    /**
+     * Packets sent from a client to the server
+     */
+    SERVERBOUND
+
+}
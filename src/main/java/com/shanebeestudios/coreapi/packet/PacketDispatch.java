@@ -0,0 +1,21 @@
+package com.shanebeestudios.coreapi.packet;
+
+/**
+ * Resolved handlers and event subscription for a concrete packet class
+ *
+ * @param packetClass    Class of packet this was resolved for
+ * @param handlers       Handlers to call, in order
+ * @param asyncIndex     Index of the first async handler, everything from there on runs on the async executor, -1 if none
+ * @param bundleHandlers Bundle handlers to call after the handlers, only present for bundle packets
+ * @param callEvent      Whether a packet event should be called after the handlers
+ */
+record PacketDispatch(Class<?> packetClass, PacketHandlerRegistration[] handlers, int asyncIndex,
+                      PacketBundleHandlerRegistration[] bundleHandlers, boolean callEvent) {
+
+    static final PacketDispatch NONE = new PacketDispatch(null, new PacketHandlerRegistration[0], -1, new PacketBundleHandlerRegistration[0], false);
+
+    boolean isEmpty() {
+        return this == NONE;
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.shanebeestudios.coreapi.event.PacketEvent;
+import net.minecraft.network.protocol.Packet;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Access to the internals of {@link PacketEvent} from this package
+ * <p>The event package registers the only instance when {@link PacketEvent} is initialized,
+ * so resetting an event is not part of its public API.</p>
+ *
+ * @hidden internal
+ */
+@ApiStatus.Internal
+public abstract class PacketEventAccess {
+
+    private static PacketEventAccess ACCESS;
+
+    /**
+     * Set the access of the event package
+     *
+     * @param access Access to set
+     * @hidden internal
+     */
+    @ApiStatus.Internal
+    public static synchronized void setAccess(PacketEventAccess access) {
+        if (ACCESS != null) {
+            throw new IllegalStateException("PacketEventAccess is already set");
+        }
+        ACCESS = access;
+    }
+
+    static PacketEventAccess getAccess() {
+        PacketEventAccess access = ACCESS;
+        if (access != null) return access;
+        try {
+            // Initializing the event class registers its access
+            Class.forName(PacketEvent.class.getName(), true, PacketEvent.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+        return ACCESS;
+    }
+
+    /**
+     * Reset an event to be reused for another packet
+     *
+     * @param event  Event to reset
+     * @param packet Packet of event
+     * @param player Player of event
+     */
+    protected abstract void reset(PacketEvent event, Packet<?> packet, Player player);
+
+}
@@ -0,0 +1,125 @@
+package com.shanebeestudios.coreapi.packet;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Netty handler which consolidates flushes of a channel
+ * <p>A flush is held back until either enough writes are pending, or the event loop has run
+ * its other queued tasks/the server tick ended, so multiple flushes turn into a single syscall.</p>
+ */
+@ApiStatus.Internal
+public class PacketFlushHandler extends ChannelDuplexHandler {
+
+    static final LongAdder FLUSHES_REQUESTED = new LongAdder();
+    static final LongAdder FLUSHES_PERFORMED = new LongAdder();
+    private static final Set<PacketFlushHandler> END_OF_TICK = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Flush all channels waiting for the end of the tick
+     *
+     * @hidden internal
+     */
+    public static void flushEndOfTick() {
+        Iterator<PacketFlushHandler> iterator = END_OF_TICK.iterator();
+        while (iterator.hasNext()) {
+            PacketFlushHandler handler = iterator.next();
+            iterator.remove();
+            ChannelHandlerContext ctx = handler.ctx;
+            if (ctx != null) ctx.channel().eventLoop().execute(handler.flushTask);
+        }
+    }
+
+    private final int maxWrites;
+    private final boolean endOfTick;
+    private final Runnable flushTask = this::scheduledFlush;
+    // Set on the event loop, read from the main thread by flushEndOfTick
+    private volatile ChannelHandlerContext ctx;
+    private int pendingWrites;
+    private boolean flushPending;
+    private boolean scheduled;
+
+    /**
+     * @param maxWrites Amount of pending writes after which a flush is passed on immediately
+     * @param endOfTick Whether to hold flushes until the end of the server tick, rather than until the event loop is idle
+     * @hidden internal
+     */
+    public PacketFlushHandler(int maxWrites, boolean endOfTick) {
+        this.maxWrites = maxWrites;
+        this.endOfTick = endOfTick;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        END_OF_TICK.remove(this);
+        if (this.flushPending) flushNow(ctx);
+        this.ctx = null;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        this.pendingWrites++;
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        FLUSHES_REQUESTED.increment();
+        this.flushPending = true;
+        if (this.pendingWrites >= this.maxWrites) {
+            flushNow(ctx);
+        } else if (!this.scheduled) {
+            this.scheduled = true;
+            if (this.endOfTick) {
+                END_OF_TICK.add(this);
+            } else {
+                ctx.channel().eventLoop().execute(this.flushTask);
+            }
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // Let the outbound buffer drain rather than growing it further
+        if (!ctx.channel().isWritable() && this.flushPending) flushNow(ctx);
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        if (this.flushPending) flushNow(ctx);
+        super.disconnect(ctx, promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        if (this.flushPending) flushNow(ctx);
+        super.close(ctx, promise);
+    }
+
+    private void scheduledFlush() {
+        this.scheduled = false;
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx != null && this.flushPending) flushNow(ctx);
+    }
+
+    private void flushNow(ChannelHandlerContext ctx) {
+        this.pendingWrites = 0;
+        this.flushPending = false;
+        FLUSHES_PERFORMED.increment();
+        ctx.flush();
+    }
+
+}
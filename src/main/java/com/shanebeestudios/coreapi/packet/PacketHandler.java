@@ -0,0 +1,33 @@
+package com.shanebeestudios.coreapi.packet;
+
+import net.minecraft.network.protocol.Packet;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventPriority;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Handler for a specific type of packet
+ * <p>Handlers are registered with {@link PacketRegistry#registerHandler(Plugin, PacketDirection, Class, EventPriority, PacketHandler)}
+ * and are called directly on the netty thread of the connection, without going through the Bukkit event system.</p>
+ *
+ * @param <P> Type of packet to handle
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@FunctionalInterface
+public interface PacketHandler<P extends Packet<?>> {
+
+    /**
+     * Handle a packet
+     * <p>Return the packet to let it pass unchanged, a different packet to replace it
+     * or null to cancel it.</p>
+     *
+     * @param player Player that sent/is receiving the packet, null during login/configuration before the player has joined
+     * @param packet Packet to handle
+     * @return Packet to pass on, or null to cancel
+     */
+    @Nullable Packet<?> handle(@Nullable Player player, @NotNull P packet);
+
+}
@@ -0,0 +1,93 @@
+package com.shanebeestudios.coreapi.packet;
+
+import net.minecraft.network.protocol.Packet;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventPriority;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a {@link PacketHandler} registered in the {@link PacketRegistry}
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketHandlerRegistration {
+
+    private final Plugin plugin;
+    private final PacketDirection direction;
+    private final Class<?> packetClass;
+    private final EventPriority priority;
+    private final PacketHandler<Packet<?>> handler;
+    private final boolean async;
+
+    @SuppressWarnings("unchecked")
+    PacketHandlerRegistration(Plugin plugin, PacketDirection direction, Class<?> packetClass, EventPriority priority, PacketHandler<?> handler,
+                              boolean async) {
+        this.plugin = plugin;
+        this.direction = direction;
+        this.packetClass = packetClass;
+        this.priority = priority;
+        this.handler = (PacketHandler<Packet<?>>) handler;
+        this.async = async;
+    }
+
+    /**
+     * Get the plugin which registered the handler
+     *
+     * @return Plugin which registered the handler
+     */
+    public @NotNull Plugin getPlugin() {
+        return this.plugin;
+    }
+
+    /**
+     * Get the direction of packets the handler receives
+     *
+     * @return Direction of packets
+     */
+    public @NotNull PacketDirection getDirection() {
+        return this.direction;
+    }
+
+    /**
+     * Get the class of packets the handler receives
+     *
+     * @return Class of packets
+     */
+    public @NotNull Class<?> getPacketClass() {
+        return this.packetClass;
+    }
+
+    /**
+     * Get the priority of the handler
+     *
+     * @return Priority of handler
+     */
+    public @NotNull EventPriority getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * Get the handler
+     *
+     * @return Handler
+     */
+    public @NotNull PacketHandler<?> getHandler() {
+        return this.handler;
+    }
+
+    /**
+     * Check if the handler runs on the async executor
+     *
+     * @return True if async
+     */
+    public boolean isAsync() {
+        return this.async;
+    }
+
+    Packet<?> handle(Player player, Packet<?> packet) {
+        return this.handler.handle(player, packet);
+    }
+
+}
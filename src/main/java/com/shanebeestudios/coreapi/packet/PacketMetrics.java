@@ -0,0 +1,176 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metrics of intercepted packets, per packet class and direction
+ * <p>Metrics are disabled by default. When enabled, every packet passing the packet listener is recorded,
+ * including the time spent in {@link PacketHandler packet handlers} and packet events.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketMetrics {
+
+    private PacketMetrics() {
+    }
+
+    private static volatile boolean ENABLED = false;
+    private static final Map<Class<?>, PacketStats> CLIENTBOUND = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, PacketStats> SERVERBOUND = new ConcurrentHashMap<>();
+
+    /**
+     * Enable or disable recording of metrics
+     *
+     * @param enabled Whether to record metrics
+     */
+    public static void setEnabled(boolean enabled) {
+        ENABLED = enabled;
+    }
+
+    /**
+     * Check if metrics are being recorded
+     *
+     * @return True if recording
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Reset all recorded metrics
+     */
+    public static void reset() {
+        CLIENTBOUND.values().forEach(PacketStats::reset);
+        SERVERBOUND.values().forEach(PacketStats::reset);
+        PacketFlushHandler.FLUSHES_REQUESTED.reset();
+        PacketFlushHandler.FLUSHES_PERFORMED.reset();
+        PacketCapture.RECORDED.reset();
+        PacketCapture.DROPPED.reset();
+    }
+
+    /**
+     * Get the amount of flushes requested on channels with flush consolidation
+     * <p>Flushes are always counted while flush consolidation is enabled, even if metrics are disabled.</p>
+     *
+     * @return Amount of flushes requested
+     */
+    public static long getFlushesRequested() {
+        return PacketFlushHandler.FLUSHES_REQUESTED.sum();
+    }
+
+    /**
+     * Get the amount of flushes actually passed on by flush consolidation
+     *
+     * @return Amount of flushes performed
+     */
+    public static long getFlushesPerformed() {
+        return PacketFlushHandler.FLUSHES_PERFORMED.sum();
+    }
+
+    /**
+     * Get the amount of flushes saved by flush consolidation
+     *
+     * @return Amount of flushes saved
+     */
+    public static long getFlushesSaved() {
+        return Math.max(0, getFlushesRequested() - getFlushesPerformed());
+    }
+
+    /**
+     * Get the amount of packets recorded by packet captures
+     * <p>Captured packets are always counted, even if metrics are disabled.</p>
+     *
+     * @return Amount of captured packets
+     */
+    public static long getCapturedPackets() {
+        return PacketCapture.RECORDED.sum();
+    }
+
+    /**
+     * Get the amount of packets packet captures could not record
+     * <p>Packets are dropped if they don't fit in a segment, or a new segment could not be created.</p>
+     *
+     * @return Amount of dropped packets
+     */
+    public static long getCaptureDroppedPackets() {
+        return PacketCapture.DROPPED.sum();
+    }
+
+    /**
+     * Get the metrics of a packet class
+     *
+     * @param direction   Direction of packets
+     * @param packetClass Class of packets
+     * @return Metrics of packet class, null if none were recorded
+     */
+    public static @Nullable PacketStats getStats(@NotNull PacketDirection direction, @NotNull Class<?> packetClass) {
+        Preconditions.checkArgument(direction != null, "PacketDirection cannot be null");
+        Preconditions.checkArgument(packetClass != null, "Packet class cannot be null");
+        return getMap(direction).get(packetClass);
+    }
+
+    /**
+     * Get the metrics of all packet classes which have been recorded
+     *
+     * @return Metrics sorted by total handler time, highest first
+     */
+    public static @NotNull List<PacketStats> getStats() {
+        List<PacketStats> stats = new ArrayList<>(CLIENTBOUND.values());
+        stats.addAll(SERVERBOUND.values());
+        stats.sort(Comparator.comparingLong(PacketStats::getTotalNanos).reversed());
+        return stats;
+    }
+
+    /**
+     * Dump all recorded metrics to a file
+     * <p>The file is written as tab separated values, one packet class per line.</p>
+     *
+     * @param path Path of file to write to, will be overwritten
+     * @throws IOException If the file could not be written
+     */
+    public static void dump(@NotNull Path path) throws IOException {
+        Preconditions.checkArgument(path != null, "Path cannot be null");
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("# Packet metrics " + Instant.now() + "\n");
+            writer.write("# Flushes requested: " + getFlushesRequested() + ", performed: " + getFlushesPerformed() + "\n");
+            writer.write("direction\tpacket\tcount\tcancelled\treplaced\tbytes\ttotal_ns\tavg_ns\tp50_ns\tp99_ns\tmax_ns\n");
+            for (PacketStats stats : getStats()) {
+                writer.write(String.format("%s\t%s\t%d\t%d\t%d\t%d\t%d\t%.0f\t%d\t%d\t%d%n",
+                    stats.getDirection(), stats.getPacketClass().getSimpleName(), stats.getCount(), stats.getCancelled(),
+                    stats.getReplaced(), stats.getBytes(), stats.getTotalNanos(), stats.getAverageNanos(),
+                    stats.getPercentileNanos(0.5), stats.getPercentileNanos(0.99), stats.getMaxNanos()));
+            }
+        }
+    }
+
+    static PacketStats getOrCreateStats(PacketDirection direction, Class<?> packetClass) {
+        Map<Class<?>, PacketStats> map = getMap(direction);
+        PacketStats stats = map.get(packetClass);
+        if (stats == null) {
+            stats = map.computeIfAbsent(packetClass, key -> new PacketStats(direction, key));
+        }
+        return stats;
+    }
+
+    private static Map<Class<?>, PacketStats> getMap(PacketDirection direction) {
+        return direction == PacketDirection.CLIENTBOUND ? CLIENTBOUND : SERVERBOUND;
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.shanebeestudios.coreapi.packet;
+
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import net.minecraft.network.protocol.Packet;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+
+/**
+ * Packets of one channel and direction waiting behind a packet which is being handled asynchronously
+ * <p>Only touched from the event loop of the channel.</p>
+ */
+final class PacketQueue {
+
+    final PacketDirection direction;
+    final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+    /**
+     * Whether the head of the queue is currently being handled by the async executor
+     */
+    boolean inFlight;
+
+    /**
+     * Whether the queue is currently being drained, to prevent re-entrant draining from handlers
+     */
+    boolean draining;
+
+    /**
+     * Whether auto read was turned off because too many packets were waiting
+     */
+    boolean paused;
+
+    /**
+     * Whether the channel has closed, packets are dropped from then on
+     */
+    boolean closed;
+
+    PacketQueue(PacketDirection direction) {
+        this.direction = direction;
+    }
+
+    boolean isEmpty() {
+        return this.entries.isEmpty();
+    }
+
+    /**
+     * Drop all waiting packets, failing their promises
+     * <p>A packet still being handled asynchronously is dropped once it completes.</p>
+     */
+    void close() {
+        this.closed = true;
+        Entry entry;
+        while ((entry = this.entries.poll()) != null) {
+            drop(entry.packet, entry.promise);
+        }
+    }
+
+    static void drop(Packet<?> packet, ChannelPromise promise) {
+        ReferenceCountUtil.release(packet);
+        if (promise != null) promise.tryFailure(new ClosedChannelException());
+    }
+
+    static final class Entry {
+
+        final Packet<?> packet;
+        final ChannelPromise promise;
+        final PacketDispatch dispatch;
+        final PacketStats stats;
+        long nanos;
+
+        Entry(Packet<?> packet, ChannelPromise promise, PacketDispatch dispatch, PacketStats stats) {
+            this.packet = packet;
+            this.promise = promise;
+            this.dispatch = dispatch;
+            this.stats = stats;
+        }
+
+    }
+
+}
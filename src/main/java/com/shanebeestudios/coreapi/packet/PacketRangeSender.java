@@ -0,0 +1,258 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.google.common.base.Preconditions;
+import com.shanebeestudios.coreapi.util.McUtils;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Send packets to players within range of a position
+ * <p>Players are kept in a grid of chunks per world, updated as they move between chunks,
+ * so finding nearby players only looks at the chunks the radius covers rather than every online player.
+ * Players moved without a move event (such as in vehicles) are picked up once a second.</p>
+ * <p>Everything in here may only be used from the main thread.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketRangeSender implements Listener {
+
+    private static PacketRangeSender LISTENER;
+    private static BukkitTask TASK;
+    private static final Map<UUID, Long2ObjectMap<List<Player>>> GRID = new HashMap<>();
+    private static final Map<UUID, Cell> CELLS = new HashMap<>();
+
+    private PacketRangeSender() {
+    }
+
+    /**
+     * Initialize the player index with a plugin
+     *
+     * @param plugin Plugin used to listen to player movement
+     */
+    public static void init(@NotNull Plugin plugin) {
+        Preconditions.checkArgument(plugin != null, "Plugin cannot be null");
+        if (LISTENER != null) {
+            throw new IllegalStateException("PacketRangeSender is already initialized!");
+        }
+        LISTENER = new PacketRangeSender();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            update(player, player.getLocation());
+        }
+        Bukkit.getPluginManager().registerEvents(LISTENER, plugin);
+        TASK = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                ServerPlayer serverPlayer = McUtils.getServerPlayer(player);
+                update(player, player.getWorld(), serverPlayer.chunkPosition().toLong());
+            }
+        }, 20, 20);
+    }
+
+    /**
+     * Stop the player index
+     */
+    public static void shutdown() {
+        if (LISTENER == null) return;
+        HandlerList.unregisterAll(LISTENER);
+        TASK.cancel();
+        LISTENER = null;
+        TASK = null;
+        GRID.clear();
+        CELLS.clear();
+    }
+
+    /**
+     * Get the players within a radius of a location
+     *
+     * @param location Center location
+     * @param radius   Radius in blocks
+     * @return Players within radius
+     */
+    public static @NotNull List<Player> getNearbyPlayers(@NotNull Location location, double radius) {
+        Preconditions.checkArgument(location != null, "Location cannot be null");
+        Preconditions.checkArgument(location.getWorld() != null, "Location must have a world");
+        return getNearbyPlayers(location.getWorld(), location.getX(), location.getY(), location.getZ(), radius);
+    }
+
+    /**
+     * Get the players within a radius of a block position
+     *
+     * @param world    World of position
+     * @param blockPos Center of block position
+     * @param radius   Radius in blocks
+     * @return Players within radius
+     */
+    public static @NotNull List<Player> getNearbyPlayers(@NotNull World world, @NotNull BlockPos blockPos, double radius) {
+        Preconditions.checkArgument(world != null, "World cannot be null");
+        Preconditions.checkArgument(blockPos != null, "BlockPos cannot be null");
+        return getNearbyPlayers(world, blockPos.getX() + 0.5, blockPos.getY() + 0.5, blockPos.getZ() + 0.5, radius);
+    }
+
+    /**
+     * Send a packet to the players within a radius of a location
+     *
+     * @param location Center location
+     * @param radius   Radius in blocks
+     * @param packet   Packet to send
+     */
+    public static void send(@NotNull Location location, double radius, @NotNull Packet<? super ClientGamePacketListener> packet) {
+        send(getNearbyPlayers(location, radius), packet, false);
+    }
+
+    /**
+     * Send a packet to the players within a radius of a location
+     *
+     * @param location   Center location
+     * @param radius     Radius in blocks
+     * @param packet     Packet to send
+     * @param encodeOnce Whether to encode the packet once for all players, see {@link PacketBroadcaster}
+     */
+    public static void send(@NotNull Location location, double radius, @NotNull Packet<? super ClientGamePacketListener> packet, boolean encodeOnce) {
+        send(getNearbyPlayers(location, radius), packet, encodeOnce);
+    }
+
+    /**
+     * Send a packet to the players within a radius of a block position
+     *
+     * @param world      World of position
+     * @param blockPos   Center of block position
+     * @param radius     Radius in blocks
+     * @param packet     Packet to send
+     * @param encodeOnce Whether to encode the packet once for all players, see {@link PacketBroadcaster}
+     */
+    public static void send(@NotNull World world, @NotNull BlockPos blockPos, double radius, @NotNull Packet<? super ClientGamePacketListener> packet,
+                            boolean encodeOnce) {
+        send(getNearbyPlayers(world, blockPos, radius), packet, encodeOnce);
+    }
+
+    private static void send(List<Player> players, Packet<? super ClientGamePacketListener> packet, boolean encodeOnce) {
+        Preconditions.checkArgument(packet != null, "Packet cannot be null");
+        if (players.isEmpty()) return;
+        if (encodeOnce) {
+            // Still goes through packet handlers if any are registered for it
+            PacketBroadcaster.broadcast(players, packet, true);
+            return;
+        }
+        for (Player player : players) {
+            McUtils.getServerPlayer(player).connection.send(packet);
+        }
+    }
+
+    private static List<Player> getNearbyPlayers(World world, double x, double y, double z, double radius) {
+        Preconditions.checkArgument(radius >= 0, "Radius cannot be negative");
+        if (LISTENER == null) {
+            throw new IllegalStateException("PacketRangeSender is not initialized, run 'PacketRangeSender.init(Plugin)' first.");
+        }
+        List<Player> players = new ArrayList<>();
+        Long2ObjectMap<List<Player>> grid = GRID.get(world.getUID());
+        if (grid == null || grid.isEmpty()) return players;
+        double radiusSquared = radius * radius;
+        int minX = (int) Math.floor(x - radius) >> 4;
+        int maxX = (int) Math.floor(x + radius) >> 4;
+        int minZ = (int) Math.floor(z - radius) >> 4;
+        int maxZ = (int) Math.floor(z + radius) >> 4;
+        for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+            for (int chunkZ = minZ; chunkZ <= maxZ; chunkZ++) {
+                List<Player> cell = grid.get(ChunkPos.asLong(chunkX, chunkZ));
+                if (cell == null) continue;
+                for (Player player : cell) {
+                    ServerPlayer serverPlayer = McUtils.getServerPlayer(player);
+                    if (serverPlayer.distanceToSqr(x, y, z) <= radiusSquared) players.add(player);
+                }
+            }
+        }
+        return players;
+    }
+
+    private static void update(Player player, Location location) {
+        update(player, location.getWorld(), ChunkPos.asLong(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+    }
+
+    private static void update(Player player, World world, long chunk) {
+        UUID worldId = world.getUID();
+        Cell cell = CELLS.get(player.getUniqueId());
+        if (cell != null) {
+            if (cell.world.equals(worldId) && cell.chunk == chunk) return;
+            remove(player, cell);
+        }
+        GRID.computeIfAbsent(worldId, uuid -> new Long2ObjectOpenHashMap<>())
+            .computeIfAbsent(chunk, key -> new ArrayList<>(4))
+            .add(player);
+        CELLS.put(player.getUniqueId(), new Cell(worldId, chunk));
+    }
+
+    private static void remove(Player player, Cell cell) {
+        Long2ObjectMap<List<Player>> grid = GRID.get(cell.world);
+        if (grid == null) return;
+        List<Player> players = grid.get(cell.chunk);
+        if (players == null) return;
+        players.remove(player);
+        if (players.isEmpty()) grid.remove(cell.chunk);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onJoin(PlayerJoinEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onQuit(PlayerQuitEvent event) {
+        Cell cell = CELLS.remove(event.getPlayer().getUniqueId());
+        if (cell != null) remove(event.getPlayer(), cell);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (from.getBlockX() >> 4 == to.getBlockX() >> 4 && from.getBlockZ() >> 4 == to.getBlockZ() >> 4 && from.getWorld() == to.getWorld()) return;
+        update(event.getPlayer(), to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onTeleport(PlayerTeleportEvent event) {
+        update(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onChangeWorld(PlayerChangedWorldEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onRespawn(PlayerRespawnEvent event) {
+        update(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    private record Cell(UUID world, long chunk) {
+    }
+
+}
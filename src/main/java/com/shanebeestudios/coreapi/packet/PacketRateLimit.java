@@ -0,0 +1,135 @@
+package com.shanebeestudios.coreapi.packet;
+
+import net.minecraft.network.protocol.Packet;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents a rate limit of a serverbound packet class registered in the {@link PacketRateLimiter}
+ * <p>Each player gets a token bucket holding up to burst packets, refilled at permitsPerSecond.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketRateLimit {
+
+    private final Plugin plugin;
+    private final Class<? extends Packet<?>> packetClass;
+    private final double permitsPerSecond;
+    private final int burst;
+    private final PacketRateLimitAction action;
+    // Index of this limit's bucket in the channel state
+    final int index;
+    final double permitsPerNano;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder limited = new LongAdder();
+    private final LongAdder kicked = new LongAdder();
+
+    PacketRateLimit(Plugin plugin, Class<? extends Packet<?>> packetClass, double permitsPerSecond, int burst,
+                    PacketRateLimitAction action, int index) {
+        this.plugin = plugin;
+        this.packetClass = packetClass;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.action = action;
+        this.index = index;
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000D;
+    }
+
+    /**
+     * Get the plugin which registered the limit
+     *
+     * @return Plugin which registered the limit
+     */
+    public @NotNull Plugin getPlugin() {
+        return this.plugin;
+    }
+
+    /**
+     * Get the class of packets this limit applies to
+     *
+     * @return Class of packets, subclasses are also limited
+     */
+    public @NotNull Class<? extends Packet<?>> getPacketClass() {
+        return this.packetClass;
+    }
+
+    /**
+     * Get the amount of packets per second a player may send
+     *
+     * @return Packets per second
+     */
+    public double getPermitsPerSecond() {
+        return this.permitsPerSecond;
+    }
+
+    /**
+     * Get the amount of packets a player may send at once
+     *
+     * @return Max burst of packets
+     */
+    public int getBurst() {
+        return this.burst;
+    }
+
+    /**
+     * Get the action taken on packets over the limit
+     *
+     * @return Action taken
+     */
+    public @NotNull PacketRateLimitAction getAction() {
+        return this.action;
+    }
+
+    /**
+     * Get the amount of packets which were within the limit
+     *
+     * @return Amount of allowed packets
+     */
+    public long getAllowed() {
+        return this.allowed.sum();
+    }
+
+    /**
+     * Get the amount of packets which went over the limit
+     * <p>Depending on the action these were dropped or throttled.</p>
+     *
+     * @return Amount of limited packets
+     */
+    public long getLimited() {
+        return this.limited.sum();
+    }
+
+    /**
+     * Get the amount of players kicked by this limit
+     *
+     * @return Amount of kicks
+     */
+    public long getKicked() {
+        return this.kicked.sum();
+    }
+
+    /**
+     * Reset the stats of this limit
+     */
+    public void resetStats() {
+        this.allowed.reset();
+        this.limited.reset();
+        this.kicked.reset();
+    }
+
+    void recordAllowed() {
+        this.allowed.increment();
+    }
+
+    void recordLimited() {
+        this.limited.increment();
+    }
+
+    void recordKicked() {
+        this.kicked.increment();
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.shanebeestudios.coreapi.packet;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Action taken when a player sends packets faster than a {@link PacketRateLimit} allows
+ */
+@ApiStatus.AvailableSince("1.2.0")
+public enum PacketRateLimitAction {
+
+    /**
+     * Drop packets over the limit
+     */
+    DROP,
+
+    /**
+     * Drop packets over the limit and kick the player
+     */
+    KICK,
+
+    /**
+     * Let packets over the limit through, but stop reading from the player's connection
+     * until the limit has caught up again
+     */
+    THROTTLE
+
+}
@@ -0,0 +1,241 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.google.common.base.Preconditions;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import net.kyori.adventure.text.Component;
+import net.minecraft.network.protocol.Packet;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits for serverbound packets, per player and packet class
+ * <p>Limits are checked on the netty thread as packets are read, before any {@link PacketHandler packet handlers},
+ * so packets over the limit never reach the main thread.
+ * A packet matching several limits has to be within all of them.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketRateLimiter {
+
+    private static final Component KICK_MESSAGE = Component.text("You are sending too many packets!");
+    private static volatile Limits LIMITS = Limits.EMPTY;
+    // Bucket indexes in use, freed indexes are reused so buckets only grow with the amount of live limits
+    private static final BitSet INDEXES = new BitSet();
+
+    private PacketRateLimiter() {
+    }
+
+    /**
+     * Register a rate limit for a serverbound packet class
+     *
+     * @param plugin           Plugin registering the limit
+     * @param packetClass      Class of packets to limit, subclasses will also be limited
+     * @param permitsPerSecond Amount of packets per second a player may send
+     * @param burst            Amount of packets a player may send at once
+     * @param action           Action taken on packets over the limit
+     * @return Limit which can be used to unregister the limit and get its stats
+     */
+    public static @NotNull PacketRateLimit registerLimit(@NotNull Plugin plugin, @NotNull Class<? extends Packet<?>> packetClass,
+                                                         double permitsPerSecond, int burst, @NotNull PacketRateLimitAction action) {
+        Preconditions.checkArgument(plugin != null, "Plugin cannot be null");
+        Preconditions.checkArgument(packetClass != null, "Packet class cannot be null");
+        Preconditions.checkArgument(permitsPerSecond > 0, "Permits per second must be greater than 0");
+        Preconditions.checkArgument(burst > 0, "Burst must be greater than 0");
+        Preconditions.checkArgument(action != null, "PacketRateLimitAction cannot be null");
+        synchronized (PacketRateLimiter.class) {
+            int index = INDEXES.nextClearBit(0);
+            INDEXES.set(index);
+            PacketRateLimit limit = new PacketRateLimit(plugin, packetClass, permitsPerSecond, burst, action, index);
+            List<PacketRateLimit> limits = new ArrayList<>(Arrays.asList(LIMITS.limits));
+            limits.add(limit);
+            setLimits(limits);
+            return limit;
+        }
+    }
+
+    /**
+     * Unregister a rate limit
+     *
+     * @param limit Limit to unregister
+     */
+    public static void unregisterLimit(@NotNull PacketRateLimit limit) {
+        Preconditions.checkArgument(limit != null, "PacketRateLimit cannot be null");
+        synchronized (PacketRateLimiter.class) {
+            List<PacketRateLimit> limits = new ArrayList<>(Arrays.asList(LIMITS.limits));
+            if (!limits.remove(limit)) return;
+            setLimits(limits);
+        }
+    }
+
+    /**
+     * Unregister all rate limits registered by a plugin
+     *
+     * @param plugin Plugin to unregister limits for
+     */
+    public static void unregisterLimits(@NotNull Plugin plugin) {
+        Preconditions.checkArgument(plugin != null, "Plugin cannot be null");
+        synchronized (PacketRateLimiter.class) {
+            List<PacketRateLimit> limits = new ArrayList<>(Arrays.asList(LIMITS.limits));
+            if (!limits.removeIf(limit -> limit.getPlugin() == plugin)) return;
+            setLimits(limits);
+        }
+    }
+
+    private static void setLimits(List<PacketRateLimit> limits) {
+        INDEXES.clear();
+        limits.forEach(limit -> INDEXES.set(limit.index));
+        LIMITS = new Limits(limits);
+    }
+
+    /**
+     * Get all registered rate limits
+     *
+     * @return Rate limits in order they were registered
+     */
+    public static @NotNull List<PacketRateLimit> getLimits() {
+        return List.of(LIMITS.limits);
+    }
+
+    /**
+     * Take a permit for a packet from the buckets of the channel
+     * <p>Only called from the event loop of the channel.</p>
+     *
+     * @return False if the packet should be dropped
+     */
+    static boolean tryAcquire(ChannelHandlerContext ctx, PacketChannelState state, Packet<?> packet) {
+        Limits limits = LIMITS;
+        if (limits.limits.length == 0) return true;
+        PacketRateLimit[] matching = limits.getLimits(packet.getClass());
+        if (matching.length == 0) return true;
+        // Waiting to be kicked, nothing gets through anymore
+        if (state.rateLimitKicked) return false;
+        long now = System.nanoTime();
+        for (PacketRateLimit limit : matching) {
+            if (!tryAcquire(ctx, state, limit, now)) return false;
+        }
+        return true;
+    }
+
+    private static boolean tryAcquire(ChannelHandlerContext ctx, PacketChannelState state, PacketRateLimit limit, long now) {
+        int index = limit.index;
+        state.ensureRateBuckets(index + 1);
+        if (state.rateOwners[index] != limit) {
+            // Bucket was left by an unregistered limit, start out full
+            state.rateOwners[index] = limit;
+            state.rateNanos[index] = 0;
+        }
+        double tokens;
+        long last = state.rateNanos[index];
+        if (last == 0) {
+            tokens = limit.getBurst();
+        } else {
+            tokens = Math.min(limit.getBurst(), state.rateTokens[index] + (now - last) * limit.permitsPerNano);
+        }
+        state.rateNanos[index] = now;
+        if (tokens >= 1) {
+            state.rateTokens[index] = tokens - 1;
+            limit.recordAllowed();
+            return true;
+        }
+        limit.recordLimited();
+        switch (limit.getAction()) {
+            case DROP -> {
+                state.rateTokens[index] = tokens;
+                return false;
+            }
+            case KICK -> {
+                state.rateTokens[index] = tokens;
+                kick(ctx.channel(), state, limit);
+                return false;
+            }
+            default -> {
+                // Let it through on credit, and stop reading until the bucket is back at a whole permit
+                tokens -= 1;
+                state.rateTokens[index] = tokens;
+                if (!state.rateLimitThrottled) {
+                    state.rateLimitThrottled = true;
+                    Channel channel = ctx.channel();
+                    channel.config().setAutoRead(false);
+                    long delay = (long) Math.ceil((1 - tokens) / limit.permitsPerNano);
+                    channel.eventLoop().schedule(() -> resume(channel, state), delay, TimeUnit.NANOSECONDS);
+                }
+                return true;
+            }
+        }
+    }
+
+    private static void resume(Channel channel, PacketChannelState state) {
+        state.rateLimitThrottled = false;
+        if (state.rateLimitKicked) return;
+        // Async handlers may also have paused reading, leave it to them to resume
+        PacketQueue queue = state.getQueue(PacketDirection.SERVERBOUND);
+        if (queue == null || !queue.paused) channel.config().setAutoRead(true);
+    }
+
+    private static void kick(Channel channel, PacketChannelState state, PacketRateLimit limit) {
+        state.rateLimitKicked = true;
+        limit.recordKicked();
+        channel.config().setAutoRead(false);
+        Player player = state.player;
+        if (player == null) {
+            // Not joined yet, there is nobody to kick properly
+            channel.close();
+            return;
+        }
+        try {
+            Bukkit.getScheduler().runTask(limit.getPlugin(), () -> {
+                if (player.isOnline()) {
+                    player.kick(KICK_MESSAGE);
+                } else {
+                    channel.close();
+                }
+            });
+        } catch (IllegalPluginAccessException ignore) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Immutable rate limits with a lazily filled lookup of concrete packet classes
+     */
+    private static class Limits {
+
+        private static final Limits EMPTY = new Limits(List.of());
+        private static final PacketRateLimit[] NONE = new PacketRateLimit[0];
+
+        private final PacketRateLimit[] limits;
+        private final Map<Class<?>, PacketRateLimit[]> lookup = new ConcurrentHashMap<>();
+
+        private Limits(List<PacketRateLimit> limits) {
+            this.limits = limits.toArray(new PacketRateLimit[0]);
+        }
+
+        private PacketRateLimit[] getLimits(Class<?> packetClass) {
+            PacketRateLimit[] matching = this.lookup.get(packetClass);
+            if (matching == null) {
+                List<PacketRateLimit> list = new ArrayList<>();
+                for (PacketRateLimit limit : this.limits) {
+                    if (limit.getPacketClass().isAssignableFrom(packetClass)) list.add(limit);
+                }
+                matching = list.isEmpty() ? NONE : list.toArray(new PacketRateLimit[0]);
+                this.lookup.put(packetClass, matching);
+            }
+            return matching;
+        }
+
+    }
+
+}
@@ -0,0 +1,506 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.google.common.base.Preconditions;
+import com.shanebeestudios.coreapi.event.PacketEvent;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import org.bukkit.event.EventPriority;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link PacketHandler packet handlers} and packet classes which will fire {@link PacketEvent packet events}
+ * <p>Packets of a class with no handlers which nobody subscribed to are passed straight through.
+ * Registering a handler or subscribing to a class will also match all of its subclasses.</p>
+ * <p>Handlers are called in order of their priority, followed by {@link PacketBundleHandler bundle handlers} for bundle packets.
+ * Packet events are called after all handlers.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketRegistry {
+
+    private PacketRegistry() {
+    }
+
+    /**
+     * Packet id used to register a {@link RawPacketFilter} for all packets
+     */
+    public static final int ANY_PACKET_ID = -1;
+
+    /**
+     * Highest packet id a {@link RawPacketFilter} can be registered for, no protocol comes close to it
+     */
+    public static final int MAX_PACKET_ID = 255;
+
+    private static volatile Snapshot CLIENTBOUND = Snapshot.EMPTY;
+    private static volatile Snapshot SERVERBOUND = Snapshot.EMPTY;
+    private static volatile RawFilters CLIENTBOUND_RAW = RawFilters.EMPTY;
+    private static volatile RawFilters SERVERBOUND_RAW = RawFilters.EMPTY;
+
+    /**
+     * Register a handler for a packet class
+     *
+     * @param plugin      Plugin registering the handler
+     * @param direction   Direction of packets
+     * @param packetClass Class of packets to handle, subclasses will also be handled
+     * @param priority    Priority of handler, lower priorities are called first
+     * @param handler     Handler to register
+     * @param <P>         Type of packet
+     * @return Registration which can be used to unregister the handler
+     */
+    public static <P extends Packet<?>> @NotNull PacketHandlerRegistration registerHandler(@NotNull Plugin plugin, @NotNull PacketDirection direction,
+                                                                                           @NotNull Class<P> packetClass, @NotNull EventPriority priority,
+                                                                                           @NotNull PacketHandler<? super P> handler) {
+        return register(plugin, direction, packetClass, priority, handler, false);
+    }
+
+    /**
+     * Register a handler for a packet class with {@link EventPriority#NORMAL normal} priority
+     *
+     * @param plugin      Plugin registering the handler
+     * @param direction   Direction of packets
+     * @param packetClass Class of packets to handle, subclasses will also be handled
+     * @param handler     Handler to register
+     * @param <P>         Type of packet
+     * @return Registration which can be used to unregister the handler
+     */
+    public static <P extends Packet<?>> @NotNull PacketHandlerRegistration registerHandler(@NotNull Plugin plugin, @NotNull PacketDirection direction,
+                                                                                           @NotNull Class<P> packetClass, @NotNull PacketHandler<? super P> handler) {
+        return registerHandler(plugin, direction, packetClass, EventPriority.NORMAL, handler);
+    }
+
+    /**
+     * Register an async handler for a packet class
+     * <p>Async handlers run on the async executor instead of the netty thread, so they may block.
+     * Once a packet reaches its first async handler, all following handlers, bundle handlers and packet events
+     * for that packet also run on the async executor. Later packets of the same connection and direction
+     * wait until the packet is done, so packet order is preserved.</p>
+     *
+     * @param plugin      Plugin registering the handler
+     * @param direction   Direction of packets
+     * @param packetClass Class of packets to handle, subclasses will also be handled
+     * @param priority    Priority of handler, lower priorities are called first
+     * @param handler     Handler to register
+     * @param <P>         Type of packet
+     * @return Registration which can be used to unregister the handler
+     */
+    public static <P extends Packet<?>> @NotNull PacketHandlerRegistration registerAsyncHandler(@NotNull Plugin plugin, @NotNull PacketDirection direction,
+                                                                                                @NotNull Class<P> packetClass, @NotNull EventPriority priority,
+                                                                                                @NotNull PacketHandler<? super P> handler) {
+        return register(plugin, direction, packetClass, priority, handler, true);
+    }
+
+    /**
+     * Unregister a handler
+     *
+     * @param registration Registration of handler to unregister
+     */
+    public static void unregisterHandler(@NotNull PacketHandlerRegistration registration) {
+        Preconditions.checkArgument(registration != null, "PacketHandlerRegistration cannot be null");
+        synchronized (PacketRegistry.class) {
+            Snapshot snapshot = getSnapshot(registration.getDirection());
+            List<PacketHandlerRegistration> registrations = new ArrayList<>(Arrays.asList(snapshot.registrations));
+            if (!registrations.remove(registration)) return;
+            setSnapshot(registration.getDirection(), new Snapshot(snapshot.classes, snapshot.listenerAll, registrations, Arrays.asList(snapshot.bundleRegistrations)));
+        }
+    }
+
+    /**
+     * Unregister all handlers registered by a plugin
+     * <p>This also unregisters the plugin's bundle handlers, raw filters and {@link PacketRateLimiter rate limits}.</p>
+     *
+     * @param plugin Plugin to unregister handlers for
+     */
+    public static void unregisterHandlers(@NotNull Plugin plugin) {
+        Preconditions.checkArgument(plugin != null, "Plugin cannot be null");
+        synchronized (PacketRegistry.class) {
+            for (PacketDirection direction : PacketDirection.values()) {
+                Snapshot snapshot = getSnapshot(direction);
+                List<PacketHandlerRegistration> registrations = new ArrayList<>(Arrays.asList(snapshot.registrations));
+                List<PacketBundleHandlerRegistration> bundleRegistrations = new ArrayList<>(Arrays.asList(snapshot.bundleRegistrations));
+                boolean removed = registrations.removeIf(registration -> registration.getPlugin() == plugin);
+                removed |= bundleRegistrations.removeIf(registration -> registration.getPlugin() == plugin);
+                if (removed) setSnapshot(direction, new Snapshot(snapshot.classes, snapshot.listenerAll, registrations, bundleRegistrations));
+
+                List<RawPacketFilterRegistration> filters = new ArrayList<>(getRawFilterTable(direction).all);
+                if (filters.removeIf(registration -> registration.getPlugin() == plugin)) {
+                    setRawFilters(direction, new RawFilters(filters));
+                }
+            }
+        }
+        PacketRateLimiter.unregisterLimits(plugin);
+    }
+
+    /**
+     * Register a handler for the sub-packets of {@link ClientboundBundlePacket bundle packets}
+     * <p>Bundle handlers are called after the handlers registered for the bundle packet itself.</p>
+     *
+     * @param plugin   Plugin registering the handler
+     * @param priority Priority of handler, lower priorities are called first
+     * @param handler  Handler to register
+     * @return Registration which can be used to unregister the handler
+     */
+    public static @NotNull PacketBundleHandlerRegistration registerBundleHandler(@NotNull Plugin plugin, @NotNull EventPriority priority,
+                                                                                 @NotNull PacketBundleHandler handler) {
+        Preconditions.checkArgument(plugin != null, "Plugin cannot be null");
+        Preconditions.checkArgument(priority != null, "EventPriority cannot be null");
+        Preconditions.checkArgument(handler != null, "PacketBundleHandler cannot be null");
+        PacketBundleHandlerRegistration registration = new PacketBundleHandlerRegistration(plugin, priority, handler);
+        synchronized (PacketRegistry.class) {
+            Snapshot snapshot = CLIENTBOUND;
+            List<PacketBundleHandlerRegistration> bundleRegistrations = new ArrayList<>(Arrays.asList(snapshot.bundleRegistrations));
+            bundleRegistrations.add(registration);
+            CLIENTBOUND = new Snapshot(snapshot.classes, snapshot.listenerAll, Arrays.asList(snapshot.registrations), bundleRegistrations);
+        }
+        return registration;
+    }
+
+    /**
+     * Unregister a bundle handler
+     *
+     * @param registration Registration of handler to unregister
+     */
+    public static void unregisterBundleHandler(@NotNull PacketBundleHandlerRegistration registration) {
+        Preconditions.checkArgument(registration != null, "PacketBundleHandlerRegistration cannot be null");
+        synchronized (PacketRegistry.class) {
+            Snapshot snapshot = CLIENTBOUND;
+            List<PacketBundleHandlerRegistration> bundleRegistrations = new ArrayList<>(Arrays.asList(snapshot.bundleRegistrations));
+            if (!bundleRegistrations.remove(registration)) return;
+            CLIENTBOUND = new Snapshot(snapshot.classes, snapshot.listenerAll, Arrays.asList(snapshot.registrations), bundleRegistrations);
+        }
+    }
+
+    /**
+     * Get all bundle handlers
+     *
+     * @return Bundle handlers in order they are called
+     */
+    public static @NotNull List<PacketBundleHandlerRegistration> getBundleHandlers() {
+        return List.of(CLIENTBOUND.bundleRegistrations);
+    }
+
+    /**
+     * Register a filter for encoded packets
+     * <p>Raw filters see packets as buffers before they are decoded/after they have been encoded,
+     * which makes dropping packets much cheaper than cancelling them in a handler.
+     * They only apply once the player has joined, so ids are those of the play protocol of the server's version.</p>
+     *
+     * @param plugin    Plugin registering the filter
+     * @param direction Direction of packets
+     * @param packetId  Id of packets to filter, up to {@link #MAX_PACKET_ID}, or {@link #ANY_PACKET_ID} for all packets
+     * @param filter    Filter to register
+     * @return Registration which can be used to unregister the filter
+     */
+    public static @NotNull RawPacketFilterRegistration registerRawFilter(@NotNull Plugin plugin, @NotNull PacketDirection direction,
+                                                                         int packetId, @NotNull RawPacketFilter filter) {
+        Preconditions.checkArgument(plugin != null, "Plugin cannot be null");
+        Preconditions.checkArgument(direction != null, "PacketDirection cannot be null");
+        Preconditions.checkArgument(packetId >= ANY_PACKET_ID && packetId <= MAX_PACKET_ID,
+            "Packet id must be between 0 and MAX_PACKET_ID, or ANY_PACKET_ID");
+        Preconditions.checkArgument(filter != null, "RawPacketFilter cannot be null");
+        RawPacketFilterRegistration registration = new RawPacketFilterRegistration(plugin, direction, packetId, filter);
+        synchronized (PacketRegistry.class) {
+            List<RawPacketFilterRegistration> filters = new ArrayList<>(getRawFilterTable(direction).all);
+            filters.add(registration);
+            setRawFilters(direction, new RawFilters(filters));
+        }
+        return registration;
+    }
+
+    /**
+     * Unregister a raw filter
+     *
+     * @param registration Registration of filter to unregister
+     */
+    public static void unregisterRawFilter(@NotNull RawPacketFilterRegistration registration) {
+        Preconditions.checkArgument(registration != null, "RawPacketFilterRegistration cannot be null");
+        synchronized (PacketRegistry.class) {
+            List<RawPacketFilterRegistration> filters = new ArrayList<>(getRawFilterTable(registration.getDirection()).all);
+            if (!filters.remove(registration)) return;
+            setRawFilters(registration.getDirection(), new RawFilters(filters));
+        }
+    }
+
+    /**
+     * Get all raw filters registered for a direction
+     *
+     * @param direction Direction of packets
+     * @return Raw filters in order they were registered
+     */
+    public static @NotNull List<RawPacketFilterRegistration> getRawFilters(@NotNull PacketDirection direction) {
+        Preconditions.checkArgument(direction != null, "PacketDirection cannot be null");
+        return getRawFilterTable(direction).all;
+    }
+
+    /**
+     * Get all handlers registered for a direction
+     *
+     * @param direction Direction of packets
+     * @return Handlers in order they are called
+     */
+    public static @NotNull List<PacketHandlerRegistration> getHandlers(@NotNull PacketDirection direction) {
+        Preconditions.checkArgument(direction != null, "PacketDirection cannot be null");
+        return List.of(getSnapshot(direction).registrations);
+    }
+
+    /**
+     * Subscribe to all packets travelling in a direction
+     *
+     * @param direction Direction of packets
+     */
+    public static void subscribeAll(@NotNull PacketDirection direction) {
+        subscribeClass(direction, Packet.class);
+    }
+
+    /**
+     * Subscribe to a packet class
+     * <p>{@link PacketEvent Packet events} will be called for this class and all of its subclasses.</p>
+     *
+     * @param direction   Direction of packets
+     * @param packetClass Class of packet to subscribe to
+     */
+    public static void subscribe(@NotNull PacketDirection direction, @NotNull Class<? extends Packet<?>> packetClass) {
+        subscribeClass(direction, packetClass);
+    }
+
+    /**
+     * Unsubscribe from a packet class
+     * <p>This will only remove a class which was previously subscribed to,
+     * subclasses of a subscribed class can not be excluded.</p>
+     *
+     * @param direction   Direction of packets
+     * @param packetClass Class of packet to unsubscribe from
+     */
+    public static void unsubscribe(@NotNull PacketDirection direction, @NotNull Class<? extends Packet<?>> packetClass) {
+        Preconditions.checkArgument(direction != null, "PacketDirection cannot be null");
+        Preconditions.checkArgument(packetClass != null, "Packet class cannot be null");
+        synchronized (PacketRegistry.class) {
+            Snapshot snapshot = getSnapshot(direction);
+            Set<Class<?>> classes = new HashSet<>(snapshot.classes);
+            if (!classes.remove(packetClass)) return;
+            setSnapshot(direction, new Snapshot(classes, snapshot.listenerAll, Arrays.asList(snapshot.registrations), Arrays.asList(snapshot.bundleRegistrations)));
+        }
+    }
+
+    /**
+     * Unsubscribe from all packet classes travelling in a direction
+     *
+     * @param direction Direction of packets
+     */
+    public static void unsubscribeAll(@NotNull PacketDirection direction) {
+        Preconditions.checkArgument(direction != null, "PacketDirection cannot be null");
+        synchronized (PacketRegistry.class) {
+            Snapshot snapshot = getSnapshot(direction);
+            setSnapshot(direction, new Snapshot(Set.of(), snapshot.listenerAll, Arrays.asList(snapshot.registrations), Arrays.asList(snapshot.bundleRegistrations)));
+        }
+    }
+
+    /**
+     * Set whether the {@link com.shanebeestudios.coreapi.listener.PlayerPacketListener} subscribes to all packets
+     * <p>This is kept apart from classes subscribed to through this registry,
+     * so unsubscribing one never removes the other.</p>
+     *
+     * @param direction  Direction of packets
+     * @param subscribed Whether to subscribe to all packets
+     * @hidden internal
+     */
+    @ApiStatus.Internal
+    public static void setListenerSubscribedAll(@NotNull PacketDirection direction, boolean subscribed) {
+        Preconditions.checkArgument(direction != null, "PacketDirection cannot be null");
+        synchronized (PacketRegistry.class) {
+            Snapshot snapshot = getSnapshot(direction);
+            if (snapshot.listenerAll == subscribed) return;
+            setSnapshot(direction, new Snapshot(snapshot.classes, subscribed, Arrays.asList(snapshot.registrations), Arrays.asList(snapshot.bundleRegistrations)));
+        }
+    }
+
+    /**
+     * Check if a packet class has been subscribed to
+     *
+     * @param direction   Direction of packets
+     * @param packetClass Class of packet to check
+     * @return True if the class or one of its superclasses/interfaces is subscribed to
+     */
+    public static boolean isSubscribed(@NotNull PacketDirection direction, @NotNull Class<?> packetClass) {
+        return getSnapshot(direction).getDispatch(packetClass).callEvent();
+    }
+
+    private static PacketHandlerRegistration register(Plugin plugin, PacketDirection direction, Class<?> packetClass, EventPriority priority,
+                                                      PacketHandler<?> handler, boolean async) {
+        Preconditions.checkArgument(plugin != null, "Plugin cannot be null");
+        Preconditions.checkArgument(direction != null, "PacketDirection cannot be null");
+        Preconditions.checkArgument(packetClass != null, "Packet class cannot be null");
+        Preconditions.checkArgument(priority != null, "EventPriority cannot be null");
+        Preconditions.checkArgument(handler != null, "PacketHandler cannot be null");
+        PacketHandlerRegistration registration = new PacketHandlerRegistration(plugin, direction, packetClass, priority, handler, async);
+        synchronized (PacketRegistry.class) {
+            Snapshot snapshot = getSnapshot(direction);
+            List<PacketHandlerRegistration> registrations = new ArrayList<>(Arrays.asList(snapshot.registrations));
+            registrations.add(registration);
+            setSnapshot(direction, new Snapshot(snapshot.classes, snapshot.listenerAll, registrations, Arrays.asList(snapshot.bundleRegistrations)));
+        }
+        return registration;
+    }
+
+    static PacketDispatch getDispatch(PacketDirection direction, Class<?> packetClass) {
+        return getSnapshot(direction).getDispatch(packetClass);
+    }
+
+    private static void subscribeClass(PacketDirection direction, Class<?> packetClass) {
+        Preconditions.checkArgument(direction != null, "PacketDirection cannot be null");
+        Preconditions.checkArgument(packetClass != null, "Packet class cannot be null");
+        synchronized (PacketRegistry.class) {
+            Snapshot snapshot = getSnapshot(direction);
+            if (snapshot.classes.contains(packetClass)) return;
+            Set<Class<?>> classes = new HashSet<>(snapshot.classes);
+            classes.add(packetClass);
+            setSnapshot(direction, new Snapshot(classes, snapshot.listenerAll, Arrays.asList(snapshot.registrations), Arrays.asList(snapshot.bundleRegistrations)));
+        }
+    }
+
+    static RawFilters getRawFilterTable(PacketDirection direction) {
+        return direction == PacketDirection.CLIENTBOUND ? CLIENTBOUND_RAW : SERVERBOUND_RAW;
+    }
+
+    private static void setRawFilters(PacketDirection direction, RawFilters filters) {
+        if (direction == PacketDirection.CLIENTBOUND) {
+            CLIENTBOUND_RAW = filters;
+        } else {
+            SERVERBOUND_RAW = filters;
+        }
+    }
+
+    private static Snapshot getSnapshot(PacketDirection direction) {
+        return direction == PacketDirection.CLIENTBOUND ? CLIENTBOUND : SERVERBOUND;
+    }
+
+    private static void setSnapshot(PacketDirection direction, Snapshot snapshot) {
+        if (direction == PacketDirection.CLIENTBOUND) {
+            CLIENTBOUND = snapshot;
+        } else {
+            SERVERBOUND = snapshot;
+        }
+    }
+
+    /**
+     * Immutable state of subscriptions and handlers with a lazily filled lookup of concrete packet classes
+     * <p>A new instance replaces the old one whenever the registry changes,
+     * so the lookup never has to be invalidated.</p>
+     */
+    private static class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(Set.of(), snapshot.listenerAll, false, List.of(), List.of());
+
+        private final Set<Class<?>> classes;
+        // Subscription of the packet listener to all packets, separate from the classes subscribed to
+        private final boolean listenerAll;
+        private final PacketHandlerRegistration[] registrations;
+        private final PacketBundleHandlerRegistration[] bundleRegistrations;
+        private final Map<Class<?>, PacketDispatch> lookup = new ConcurrentHashMap<>();
+
+        private Snapshot(Set<Class<?>> classes, boolean listenerAll, List<PacketHandlerRegistration> registrations,
+                         List<PacketBundleHandlerRegistration> bundleRegistrations) {
+            this.classes = Set.copyOf(classes);
+            this.listenerAll = listenerAll;
+            this.registrations = registrations.stream()
+                .sorted(Comparator.comparingInt(registration -> registration.getPriority().getSlot()))
+                .toArray(PacketHandlerRegistration[]::new);
+            this.bundleRegistrations = bundleRegistrations.stream()
+                .sorted(Comparator.comparingInt(registration -> registration.getPriority().getSlot()))
+                .toArray(PacketBundleHandlerRegistration[]::new);
+        }
+
+        private PacketDispatch getDispatch(Class<?> packetClass) {
+            if (!this.listenerAll && this.classes.isEmpty() && this.registrations.length == 0 && this.bundleRegistrations.length == 0) {
+                return PacketDispatch.NONE;
+            }
+            PacketDispatch dispatch = this.lookup.get(packetClass);
+            if (dispatch == null) {
+                dispatch = resolve(packetClass);
+                this.lookup.put(packetClass, dispatch);
+            }
+            return dispatch;
+        }
+
+        private PacketDispatch resolve(Class<?> packetClass) {
+            boolean callEvent = this.listenerAll;
+            for (Class<?> subscribedClass : this.classes) {
+                if (subscribedClass.isAssignableFrom(packetClass)) {
+                    callEvent = true;
+                    break;
+                }
+            }
+            List<PacketHandlerRegistration> handlers = new ArrayList<>();
+            for (PacketHandlerRegistration registration : this.registrations) {
+                if (registration.getPacketClass().isAssignableFrom(packetClass)) {
+                    handlers.add(registration);
+                }
+            }
+            PacketBundleHandlerRegistration[] bundleHandlers = ClientboundBundlePacket.class.isAssignableFrom(packetClass) ?
+                this.bundleRegistrations : PacketDispatch.NONE.bundleHandlers();
+            if (!callEvent && handlers.isEmpty() && bundleHandlers.length == 0) return PacketDispatch.NONE;
+            int asyncIndex = -1;
+            for (int i = 0; i < handlers.size(); i++) {
+                if (handlers.get(i).isAsync()) {
+                    asyncIndex = i;
+                    break;
+                }
+            }
+            return new PacketDispatch(packetClass, handlers.toArray(new PacketHandlerRegistration[0]), asyncIndex, bundleHandlers, callEvent);
+        }
+
+    }
+
+    /**
+     * Immutable raw filters of a direction, indexed by packet id
+     */
+    static class RawFilters {
+
+        private static final RawFilters EMPTY = new RawFilters(List.of());
+        private static final RawPacketFilterRegistration[] NONE = new RawPacketFilterRegistration[0];
+
+        private final List<RawPacketFilterRegistration> all;
+        private final RawPacketFilterRegistration[] any;
+        private final RawPacketFilterRegistration[][] byId;
+
+        private RawFilters(List<RawPacketFilterRegistration> filters) {
+            this.all = List.copyOf(filters);
+            this.any = filters.stream().filter(filter -> filter.getPacketId() == ANY_PACKET_ID).toArray(RawPacketFilterRegistration[]::new);
+            int maxId = filters.stream().mapToInt(RawPacketFilterRegistration::getPacketId).max().orElse(ANY_PACKET_ID);
+            this.byId = new RawPacketFilterRegistration[maxId + 1][];
+            Arrays.fill(this.byId, NONE);
+            for (RawPacketFilterRegistration filter : filters) {
+                int id = filter.getPacketId();
+                if (id == ANY_PACKET_ID) continue;
+                RawPacketFilterRegistration[] forId = this.byId[id];
+                forId = Arrays.copyOf(forId, forId.length + 1);
+                forId[forId.length - 1] = filter;
+                this.byId[id] = forId;
+            }
+        }
+
+        boolean isEmpty() {
+            return this.all.isEmpty();
+        }
+
+        RawPacketFilterRegistration[] getAny() {
+            return this.any;
+        }
+
+        RawPacketFilterRegistration[] getById(int packetId) {
+            return packetId >= 0 && packetId < this.byId.length ? this.byId[packetId] : NONE;
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.google.common.base.Preconditions;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Replays packets captured with {@link com.shanebeestudios.coreapi.listener.PlayerPacketListener#startCapture(Path, int)}
+ * <p>Captured packets are fed to an {@link EmbeddedChannel} as encoded buffers, serverbound packets as inbound
+ * and clientbound packets as outbound messages, so the channel's pipeline should start with whatever decodes them.
+ * Messages coming out the other end of the pipeline are released.</p>
+ * <p>The embedded channel runs everything on the replaying thread, so
+ * {@link PacketRegistry#registerAsyncHandler async handlers} need an executor running tasks on the calling thread.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketReplayer {
+
+    private PacketReplayer() {
+    }
+
+    /**
+     * Replay all packets of a capture
+     *
+     * @param directory Directory of the capture
+     * @param channel   Channel to feed packets to
+     * @param speed     Speed compared to the original, 1 for original speed, 0 for as fast as possible
+     * @return Amount of packets replayed
+     * @throws IOException If the capture could not be read
+     */
+    public static long replay(@NotNull Path directory, @NotNull EmbeddedChannel channel, double speed) throws IOException {
+        return replay(directory, channel, speed, null);
+    }
+
+    /**
+     * Replay the packets of a capture
+     *
+     * @param directory Directory of the capture
+     * @param channel   Channel to feed packets to
+     * @param speed     Speed compared to the original, 1 for original speed, 0 for as fast as possible
+     * @param player    Player to replay packets of, null for all players
+     * @return Amount of packets replayed
+     * @throws IOException If the capture could not be read
+     */
+    public static long replay(@NotNull Path directory, @NotNull EmbeddedChannel channel, double speed, @Nullable UUID player) throws IOException {
+        Preconditions.checkArgument(directory != null, "Directory cannot be null");
+        Preconditions.checkArgument(channel != null, "Channel cannot be null");
+        Preconditions.checkArgument(speed >= 0, "Speed cannot be negative");
+        List<Path> segments;
+        try (Stream<Path> stream = Files.list(directory)) {
+            segments = stream
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(PacketCapture.SEGMENT_PREFIX) && name.endsWith(PacketCapture.SEGMENT_SUFFIX);
+                })
+                .sorted()
+                .toList();
+        }
+
+        long replayed = 0;
+        long start = System.nanoTime();
+        for (Path path : segments) {
+            MappedByteBuffer map;
+            try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                map = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            }
+            if (map.limit() < PacketCapture.HEADER_SIZE || map.getInt(0) != PacketCapture.MAGIC) {
+                throw new IOException("Not a packet capture segment: " + path);
+            }
+            if (map.getInt(4) != PacketCapture.VERSION) {
+                throw new IOException("Unsupported packet capture version " + map.getInt(4) + ": " + path);
+            }
+
+            int offset = PacketCapture.HEADER_SIZE;
+            while (offset + PacketCapture.RECORD_HEADER_SIZE <= map.limit()) {
+                int length = map.getInt(offset);
+                if (length <= 0 || offset + PacketCapture.RECORD_HEADER_SIZE + length > map.limit()) break;
+                long nanos = map.getLong(offset + 4);
+                PacketDirection direction = PacketDirection.values()[map.get(offset + 12)];
+                long most = map.getLong(offset + 13);
+                long least = map.getLong(offset + 21);
+                int dataOffset = offset + PacketCapture.RECORD_HEADER_SIZE;
+                offset = dataOffset + length;
+                if (player != null && (player.getMostSignificantBits() != most || player.getLeastSignificantBits() != least)) continue;
+
+                if (speed > 0) {
+                    long wait = start + (long) (nanos / speed) - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                }
+                ByteBuf buffer = Unpooled.buffer(length);
+                buffer.writeBytes(map.slice(dataOffset, length));
+                if (direction == PacketDirection.SERVERBOUND) {
+                    channel.writeInbound(buffer);
+                } else {
+                    channel.writeOutbound(buffer);
+                }
+                channel.runPendingTasks();
+                channel.releaseInbound();
+                channel.releaseOutbound();
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.shanebeestudios.coreapi.packet;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a single packet class travelling in one direction
+ * <p>Counters are striped, so netty threads recording packets don't contend with each other.
+ * Handler latency is recorded in a histogram with power of two buckets.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketStats {
+
+    private static final int BUCKETS = 40;
+
+    private final PacketDirection direction;
+    private final Class<?> packetClass;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+    PacketStats(PacketDirection direction, Class<?> packetClass) {
+        this.direction = direction;
+        this.packetClass = packetClass;
+        for (int i = 0; i < BUCKETS; i++) {
+            this.histogram[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos, boolean cancelled, boolean replaced) {
+        this.count.increment();
+        if (cancelled) this.cancelled.increment();
+        else if (replaced) this.replaced.increment();
+        this.totalNanos.add(nanos);
+        this.maxNanos.accumulate(nanos);
+        // Bucket i holds latencies below 2^i nanos
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+        this.histogram[bucket].increment();
+    }
+
+    void addBytes(int bytes) {
+        this.bytes.add(bytes);
+    }
+
+    void reset() {
+        this.count.reset();
+        this.cancelled.reset();
+        this.replaced.reset();
+        this.bytes.reset();
+        this.totalNanos.reset();
+        this.maxNanos.reset();
+        for (LongAdder bucket : this.histogram) {
+            bucket.reset();
+        }
+    }
+
+    /**
+     * Get the direction of the packets
+     *
+     * @return Direction of packets
+     */
+    public @NotNull PacketDirection getDirection() {
+        return this.direction;
+    }
+
+    /**
+     * Get the class of the packets
+     *
+     * @return Class of packets
+     */
+    public @NotNull Class<?> getPacketClass() {
+        return this.packetClass;
+    }
+
+    /**
+     * Get the amount of packets intercepted
+     *
+     * @return Amount of packets
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Get the amount of packets cancelled by handlers/events
+     *
+     * @return Amount of cancelled packets
+     */
+    public long getCancelled() {
+        return this.cancelled.sum();
+    }
+
+    /**
+     * Get the amount of packets replaced by handlers/events
+     *
+     * @return Amount of replaced packets
+     */
+    public long getReplaced() {
+        return this.replaced.sum();
+    }
+
+    /**
+     * Get the amount of encoded bytes of the packets
+     * <p>This is the size before compression and encryption, including the packet id.</p>
+     *
+     * @return Amount of bytes
+     */
+    public long getBytes() {
+        return this.bytes.sum();
+    }
+
+    /**
+     * Get the total time spent in handlers/events for these packets
+     *
+     * @return Total time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    /**
+     * Get the longest time spent in handlers/events for a single packet
+     *
+     * @return Max time in nanoseconds
+     */
+    public long getMaxNanos() {
+        return this.maxNanos.get();
+    }
+
+    /**
+     * Get the average time spent in handlers/events per packet
+     *
+     * @return Average time in nanoseconds
+     */
+    public double getAverageNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getTotalNanos() / count;
+    }
+
+    /**
+     * Get an estimate of a percentile of the time spent in handlers/events
+     * <p>As the histogram uses power of two buckets, this returns the upper bound of the bucket the percentile falls in.</p>
+     *
+     * @param percentile Percentile between 0 and 1
+     * @return Upper bound of percentile in nanoseconds
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] buckets = getHistogram();
+        long total = 0;
+        for (long bucket : buckets) total += bucket;
+        if (total == 0) return 0;
+        long target = (long) Math.ceil(total * Math.max(0, Math.min(1, percentile)));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= target) return 1L << i;
+        }
+        return 1L << (buckets.length - 1);
+    }
+
+    /**
+     * Get the latency histogram
+     * <p>Index i holds the amount of packets which took less than 2^i nanoseconds
+     * (and at least 2^(i-1) nanoseconds).</p>
+     *
+     * @return Copy of histogram
+     */
+    public long[] getHistogram() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = this.histogram[i].sum();
+        }
+        return buckets;
+    }
+
+}
@@ -0,0 +1,251 @@
+package com.shanebeestudios.coreapi.packet;
+
+import com.google.common.base.Preconditions;
+import com.shanebeestudios.coreapi.event.PacketEvent;
+import net.minecraft.network.protocol.Packet;
+import org.bukkit.entity.Player;
+import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.RegisteredListener;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Watchdog for slow {@link PacketHandler packet handlers}, bundle handlers and {@link PacketEvent packet event} listeners
+ * <p>While enabled, every call is timed. A background thread samples the stack of calls running over the threshold,
+ * which is logged to the plugin owning the handler. Handlers exceeding the threshold max strikes times
+ * can be unregistered automatically, so a single plugin can't slow down every connection.</p>
+ * <p>Packet event listeners are called one by one while the watchdog is enabled, rather than through the plugin manager.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketWatchdog {
+
+    private static volatile long THRESHOLD_NANOS = 0;
+    private static volatile int MAX_STRIKES = 0;
+    private static ScheduledExecutorService SAMPLER;
+    private static final Set<Slot> SLOTS = ConcurrentHashMap.newKeySet();
+    private static final ThreadLocal<Slot> SLOT = ThreadLocal.withInitial(() -> {
+        Slot slot = new Slot(Thread.currentThread());
+        SLOTS.add(slot);
+        return slot;
+    });
+    private static final Map<Object, PacketWatchdogEntry> ENTRIES = new ConcurrentHashMap<>();
+
+    private PacketWatchdog() {
+    }
+
+    /**
+     * Enable the watchdog
+     *
+     * @param threshold  Time a single call may take before it counts as a strike
+     * @param maxStrikes Amount of strikes after which a handler is unregistered, 0 to never unregister
+     */
+    public static synchronized void enable(@NotNull Duration threshold, int maxStrikes) {
+        Preconditions.checkArgument(threshold != null, "Threshold cannot be null");
+        Preconditions.checkArgument(!threshold.isNegative() && !threshold.isZero(), "Threshold must be positive");
+        Preconditions.checkArgument(maxStrikes >= 0, "Max strikes cannot be negative");
+        long thresholdNanos = threshold.toNanos();
+        MAX_STRIKES = maxStrikes;
+        THRESHOLD_NANOS = thresholdNanos;
+        if (SAMPLER != null) SAMPLER.shutdownNow();
+        SAMPLER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CoreAPI Packet Watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), thresholdNanos / 2);
+        SAMPLER.scheduleAtFixedRate(PacketWatchdog::sample, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Disable the watchdog
+     */
+    public static synchronized void disable() {
+        THRESHOLD_NANOS = 0;
+        if (SAMPLER != null) {
+            SAMPLER.shutdownNow();
+            SAMPLER = null;
+        }
+    }
+
+    /**
+     * Check whether the watchdog is enabled
+     *
+     * @return True if enabled
+     */
+    public static boolean isEnabled() {
+        return THRESHOLD_NANOS > 0;
+    }
+
+    /**
+     * Get all handlers which exceeded the threshold
+     *
+     * @return Handlers which exceeded the threshold
+     */
+    public static @NotNull List<PacketWatchdogEntry> getEntries() {
+        return new ArrayList<>(ENTRIES.values());
+    }
+
+    /**
+     * Forget all handlers which exceeded the threshold
+     * <p>Detached handlers are not registered again.</p>
+     */
+    public static void reset() {
+        ENTRIES.clear();
+    }
+
+    static Packet<?> handle(PacketHandlerRegistration registration, Player player, Packet<?> packet) {
+        Slot slot = SLOT.get();
+        Object previousOwner = slot.owner;
+        long previousStart = slot.start;
+        long start = slot.begin(registration);
+        try {
+            return registration.handle(player, packet);
+        } finally {
+            slot.end(previousOwner, previousStart);
+            check(registration, System.nanoTime() - start);
+        }
+    }
+
+    static void handle(PacketBundleHandlerRegistration registration, Player player, PacketBundle bundle) {
+        Slot slot = SLOT.get();
+        Object previousOwner = slot.owner;
+        long previousStart = slot.start;
+        long start = slot.begin(registration);
+        try {
+            registration.handle(player, bundle);
+        } finally {
+            slot.end(previousOwner, previousStart);
+            check(registration, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Call a packet event, timing each listener on its own
+     *
+     * @return False if the event was cancelled
+     */
+    static boolean callEvent(PacketEvent event) {
+        HandlerList handlers = event.getHandlers();
+        Slot slot = SLOT.get();
+        for (RegisteredListener listener : handlers.getRegisteredListeners()) {
+            if (!listener.getPlugin().isEnabled()) continue;
+            Object previousOwner = slot.owner;
+            long previousStart = slot.start;
+            long start = slot.begin(listener);
+            try {
+                listener.callEvent(event);
+            } catch (Throwable throwable) {
+                listener.getPlugin().getLogger().log(Level.SEVERE,
+                    "Could not pass event " + event.getEventName() + " to " + listener.getPlugin().getName(), throwable);
+            } finally {
+                slot.end(previousOwner, previousStart);
+                check(listener, System.nanoTime() - start);
+            }
+        }
+        return !event.isCancelled();
+    }
+
+    private static void check(Object owner, long nanos) {
+        long threshold = THRESHOLD_NANOS;
+        if (threshold <= 0 || nanos <= threshold) return;
+        PacketWatchdogEntry entry = getEntry(owner);
+        int strikes = entry.strike(nanos);
+        int maxStrikes = MAX_STRIKES;
+        entry.getPlugin().getLogger().warning(String.format("%s took %.2fms, over the packet watchdog threshold of %.2fms (strike %d%s)",
+            entry.getDescription(), nanos / 1_000_000D, threshold / 1_000_000D, strikes, maxStrikes > 0 ? "/" + maxStrikes : ""));
+        if (maxStrikes > 0 && strikes >= maxStrikes && entry.detach()) {
+            entry.getPlugin().getLogger().severe("Unregistered " + entry.getDescription() + " after " + strikes + " strikes of the packet watchdog");
+        }
+    }
+
+    private static PacketWatchdogEntry getEntry(Object owner) {
+        return ENTRIES.computeIfAbsent(owner, key -> {
+            if (key instanceof PacketHandlerRegistration registration) {
+                return new PacketWatchdogEntry(registration.getPlugin(),
+                    registration.getDirection().name().toLowerCase(Locale.ROOT) + " packet handler " + registration.getHandler().getClass().getName() +
+                        " for " + registration.getPacketClass().getSimpleName(),
+                    () -> PacketRegistry.unregisterHandler(registration));
+            } else if (key instanceof PacketBundleHandlerRegistration registration) {
+                return new PacketWatchdogEntry(registration.getPlugin(), "bundle handler " + registration.getHandler().getClass().getName(),
+                    () -> PacketRegistry.unregisterBundleHandler(registration));
+            }
+            RegisteredListener listener = (RegisteredListener) key;
+            return new PacketWatchdogEntry(listener.getPlugin(), "packet event listener " + listener.getListener().getClass().getName(),
+                () -> HandlerList.getHandlerLists().forEach(handlerList -> handlerList.unregister(listener)));
+        });
+    }
+
+    /**
+     * Sample the stacks of threads which are running a single handler for longer than the threshold
+     */
+    private static void sample() {
+        long threshold = THRESHOLD_NANOS;
+        if (threshold <= 0) return;
+        long now = System.nanoTime();
+        for (Slot slot : SLOTS) {
+            if (!slot.thread.isAlive()) {
+                SLOTS.remove(slot);
+                continue;
+            }
+            long start = slot.start;
+            Object owner = slot.owner;
+            if (start == 0 || owner == null || slot.sampled || now - start <= threshold) continue;
+            StackTraceElement[] stackTrace = slot.thread.getStackTrace();
+            // The handler may have finished while the stack was taken
+            if (slot.start != start) continue;
+            slot.sampled = true;
+            PacketWatchdogEntry entry = getEntry(owner);
+            entry.setStackTrace(stackTrace);
+            StringBuilder builder = new StringBuilder();
+            builder.append(entry.getDescription()).append(" is still running after ")
+                .append(String.format("%.2fms", (now - start) / 1_000_000D)).append(" on ").append(slot.thread.getName());
+            for (StackTraceElement element : stackTrace) {
+                builder.append("\n\tat ").append(element);
+            }
+            entry.getPlugin().getLogger().warning(builder.toString());
+        }
+    }
+
+    /**
+     * Handler currently running on a thread, only written by that thread
+     */
+    private static final class Slot {
+
+        private final Thread thread;
+        private volatile Object owner;
+        private volatile long start;
+        private volatile boolean sampled;
+
+        private Slot(Thread thread) {
+            this.thread = thread;
+        }
+
+        private long begin(Object owner) {
+            long start = System.nanoTime();
+            this.owner = owner;
+            this.sampled = false;
+            this.start = start;
+            return start;
+        }
+
+        private void end(Object previousOwner, long previousStart) {
+            this.start = previousStart;
+            this.owner = previousOwner;
+        }
+
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.shanebeestudios.coreapi.packet;
+
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Status of a packet handler or packet event listener which exceeded the {@link PacketWatchdog} threshold
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class PacketWatchdogEntry {
+
+    private final Plugin plugin;
+    private final String description;
+    private final Runnable detach;
+    private final AtomicInteger strikes = new AtomicInteger();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicBoolean detached = new AtomicBoolean();
+    private volatile StackTraceElement[] stackTrace;
+
+    PacketWatchdogEntry(Plugin plugin, String description, Runnable detach) {
+        this.plugin = plugin;
+        this.description = description;
+        this.detach = detach;
+    }
+
+    /**
+     * Get the plugin which registered the handler
+     *
+     * @return Plugin which registered the handler
+     */
+    public @NotNull Plugin getPlugin() {
+        return this.plugin;
+    }
+
+    /**
+     * Get a description of the handler
+     *
+     * @return Description of handler
+     */
+    public @NotNull String getDescription() {
+        return this.description;
+    }
+
+    /**
+     * Get the amount of times the handler exceeded the threshold
+     *
+     * @return Amount of strikes
+     */
+    public int getStrikes() {
+        return this.strikes.get();
+    }
+
+    /**
+     * Get the longest time a single call of the handler took
+     *
+     * @return Longest call in nanoseconds
+     */
+    public long getMaxNanos() {
+        return this.maxNanos.get();
+    }
+
+    /**
+     * Check whether the watchdog unregistered the handler
+     *
+     * @return True if detached
+     */
+    public boolean isDetached() {
+        return this.detached.get();
+    }
+
+    /**
+     * Get the last stack trace sampled while the handler was running over the threshold
+     *
+     * @return Last sampled stack trace, null if the handler was never sampled
+     */
+    public StackTraceElement @Nullable [] getStackTrace() {
+        return this.stackTrace;
+    }
+
+    int strike(long nanos) {
+        this.maxNanos.accumulate(nanos);
+        return this.strikes.incrementAndGet();
+    }
+
+    void setStackTrace(StackTraceElement[] stackTrace) {
+        this.stackTrace = stackTrace;
+    }
+
+    boolean detach() {
+        if (!this.detached.compareAndSet(false, true)) return false;
+        this.detach.run();
+        return true;
+    }
+
+}
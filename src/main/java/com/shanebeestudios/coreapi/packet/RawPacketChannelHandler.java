@@ -0,0 +1,139 @@
+package com.shanebeestudios.coreapi.packet;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.logging.Level;
+
+/**
+ * Netty handlers which see packets as encoded buffers
+ * <p>The inbound handler sits right before the decoder and the outbound handler right after the encoder,
+ * so buffers start with the packet id and are already decompressed/not yet compressed.</p>
+ * <p>These also record packets for {@link PacketCapture packet captures}.</p>
+ */
+@ApiStatus.Internal
+public class RawPacketChannelHandler {
+
+    /**
+     * Shared instance of the inbound handler
+     */
+    public static final ChannelHandler INBOUND = new Inbound();
+
+    /**
+     * Shared instance of the outbound handler
+     */
+    public static final ChannelHandler OUTBOUND = new Outbound();
+
+    private RawPacketChannelHandler() {
+    }
+
+    /**
+     * Read the VarInt packet id at the start of a buffer, without moving its reader index
+     *
+     * @param buffer Buffer to read from
+     * @return Packet id, or -1 if the buffer does not start with a complete VarInt
+     */
+    static int getPacketId(ByteBuf buffer) {
+        int index = buffer.readerIndex();
+        int end = Math.min(buffer.writerIndex(), index + 5);
+        int value = 0;
+        for (int shift = 0; index < end; index++, shift += 7) {
+            byte b = buffer.getByte(index);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        return -1;
+    }
+
+    /**
+     * Run the raw filters of a direction on a buffer
+     *
+     * @return False if a filter dropped the packet
+     */
+    private static boolean filter(PacketRegistry.RawFilters filters, Player player, ByteBuf buffer) {
+        int packetId = getPacketId(buffer);
+        if (packetId < 0) return true;
+        for (RawPacketFilterRegistration registration : filters.getById(packetId)) {
+            if (!test(registration, player, packetId, buffer)) return false;
+        }
+        for (RawPacketFilterRegistration registration : filters.getAny()) {
+            if (!test(registration, player, packetId, buffer)) return false;
+        }
+        return true;
+    }
+
+    private static boolean test(RawPacketFilterRegistration registration, Player player, int packetId, ByteBuf buffer) {
+        int readerIndex = buffer.readerIndex();
+        try {
+            return registration.test(player, packetId, buffer);
+        } catch (Throwable throwable) {
+            registration.getPlugin().getLogger().log(Level.SEVERE, "Could not pass packet " + packetId + " to raw filter", throwable);
+            return true;
+        } finally {
+            buffer.readerIndex(readerIndex);
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static class Inbound extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof ByteBuf buffer) {
+                PacketRegistry.RawFilters filters = PacketRegistry.getRawFilterTable(PacketDirection.SERVERBOUND);
+                boolean metrics = PacketMetrics.isEnabled();
+                boolean capturing = PacketCapture.isCapturing();
+                if (!filters.isEmpty() || metrics || capturing) {
+                    PacketChannelState state = PacketChannelState.get(ctx.channel());
+                    Player player = state.player;
+                    // Captured before filtering, so the capture holds what was actually received
+                    if (capturing && player != null) PacketCapture.record(PacketDirection.SERVERBOUND, player, buffer);
+                    if (player != null && !filters.isEmpty() && !filter(filters, player, buffer)) {
+                        buffer.release();
+                        return;
+                    }
+                    // The decoder turns this frame into exactly one packet, which the packet handler picks the size up for
+                    if (metrics) state.readBytes = buffer.readableBytes();
+                }
+            }
+            super.channelRead(ctx, msg);
+        }
+
+    }
+
+    @ChannelHandler.Sharable
+    private static class Outbound extends ChannelOutboundHandlerAdapter {
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof ByteBuf buffer) {
+                PacketRegistry.RawFilters filters = PacketRegistry.getRawFilterTable(PacketDirection.CLIENTBOUND);
+                boolean metrics = PacketMetrics.isEnabled();
+                boolean capturing = PacketCapture.isCapturing();
+                if (!filters.isEmpty() || metrics || capturing) {
+                    PacketChannelState state = PacketChannelState.get(ctx.channel());
+                    Player player = state.player;
+                    // Captured before filtering, so the capture holds what was actually sent by the server
+                    if (capturing && player != null) PacketCapture.record(PacketDirection.CLIENTBOUND, player, buffer);
+                    if (player != null && !filters.isEmpty() && !filter(filters, player, buffer)) {
+                        buffer.release();
+                        promise.trySuccess();
+                        return;
+                    }
+                    // Set by the packet handler while the packet is being written and encoded
+                    PacketStats stats = state.writingStats;
+                    if (metrics && stats != null) stats.addBytes(buffer.readableBytes());
+                }
+            }
+            super.write(ctx, msg, promise);
+        }
+
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.shanebeestudios.coreapi.packet;
+
+import io.netty.buffer.ByteBuf;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Filter for encoded packets, before they are decoded/after they have been encoded
+ * <p>Filters are registered with {@link PacketRegistry#registerRawFilter(Plugin, PacketDirection, int, RawPacketFilter)}
+ * and only apply once the player has joined, so packet ids are always those of the play protocol.
+ * Dropping a serverbound packet here skips decoding it entirely.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@FunctionalInterface
+public interface RawPacketFilter {
+
+    /**
+     * Test whether a packet should pass
+     * <p>The buffer's reader index is at the start of the packet id. It may be read with absolute getters
+     * but must not be modified or retained.</p>
+     *
+     * @param player   Player that sent/is receiving the packet
+     * @param packetId Id of packet in the play protocol
+     * @param buffer   Encoded packet including the id
+     * @return True to let the packet pass, false to drop it
+     */
+    boolean test(@NotNull Player player, int packetId, @NotNull ByteBuf buffer);
+
+}
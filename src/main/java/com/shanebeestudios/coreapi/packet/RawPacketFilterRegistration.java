@@ -0,0 +1,68 @@
+package com.shanebeestudios.coreapi.packet;
+
+import io.netty.buffer.ByteBuf;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a {@link RawPacketFilter} registered in the {@link PacketRegistry}
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public class RawPacketFilterRegistration {
+
+    private final Plugin plugin;
+    private final PacketDirection direction;
+    private final int packetId;
+    private final RawPacketFilter filter;
+
+    RawPacketFilterRegistration(Plugin plugin, PacketDirection direction, int packetId, RawPacketFilter filter) {
+        this.plugin = plugin;
+        this.direction = direction;
+        this.packetId = packetId;
+        this.filter = filter;
+    }
+
+    /**
+     * Get the plugin which registered the filter
+     *
+     * @return Plugin which registered the filter
+     */
+    public @NotNull Plugin getPlugin() {
+        return this.plugin;
+    }
+
+    /**
+     * Get the direction of packets the filter receives
+     *
+     * @return Direction of packets
+     */
+    public @NotNull PacketDirection getDirection() {
+        return this.direction;
+    }
+
+    /**
+     * Get the id of packets the filter receives
+     *
+     * @return Id of packets, or {@link PacketRegistry#ANY_PACKET_ID} for all packets
+     */
+    public int getPacketId() {
+        return this.packetId;
+    }
+
+    /**
+     * Get the filter
+     *
+     * @return Filter
+     */
+    public @NotNull RawPacketFilter getFilter() {
+        return this.filter;
+    }
+
+    boolean test(Player player, int packetId, ByteBuf buffer) {
+        return this.filter.test(player, packetId, buffer);
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Classes for intercepting and handling packets
+ */
+package com.shanebeestudios.coreapi.packet;
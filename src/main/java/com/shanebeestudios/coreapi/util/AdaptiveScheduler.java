@@ -0,0 +1,153 @@
+package com.shanebeestudios.coreapi.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+
+/**
+ * Runs {@link AdaptiveTask adaptive tasks} from a single scheduler task, stretching their periods under load
+ * <p>The load level is taken from the average tick time. It goes up as soon as a threshold is passed,
+ * and only goes down once the average tick time is a margin below that threshold again, so periods don't flap.</p>
+ */
+final class AdaptiveScheduler {
+
+    private static final int NORMAL = 0;
+    private static final int STRETCHED = 1;
+    private static final int OVERLOADED = 2;
+    // How far below a threshold the average tick time has to drop before the load level goes down
+    private static final double RECOVER_MARGIN_MILLIS = 5;
+    // Multiplier of the period per load level and priority, 0 skips the run
+    private static final int[][] FACTORS = {
+        {1, 1, 1},
+        {4, 2, 1},
+        {0, 4, 2}
+    };
+
+    private static volatile double STRETCH_MILLIS = 40;
+    private static volatile double SKIP_MILLIS = 50;
+    private static final Queue<AdaptiveTask> INBOX = new ConcurrentLinkedQueue<>();
+    private static final List<AdaptiveTask> TASKS = new ArrayList<>();
+    private static volatile Plugin PLUGIN;
+    private static Executor ASYNC_EXECUTOR;
+    private static long TICK = 0;
+    private static int LEVEL = NORMAL;
+
+    private AdaptiveScheduler() {
+    }
+
+    static void setThresholds(double stretchMillis, double skipMillis) {
+        STRETCH_MILLIS = stretchMillis;
+        SKIP_MILLIS = skipMillis;
+    }
+
+    private static synchronized void start(Plugin plugin, Executor asyncExecutor) {
+        if (PLUGIN != null) return;
+        ASYNC_EXECUTOR = asyncExecutor;
+        Bukkit.getScheduler().runTaskTimer(plugin, AdaptiveScheduler::tick, 1, 1);
+        PLUGIN = plugin;
+    }
+
+    static AdaptiveTask schedule(Plugin plugin, Executor asyncExecutor, Runnable runnable, long delay, long period,
+                                 TaskPriority priority, boolean async) {
+        if (PLUGIN == null) start(plugin, asyncExecutor);
+        AdaptiveTask task = new AdaptiveTask(runnable, period, priority, async);
+        // Relative until the task is picked up, counted from the tick it was scheduled in
+        task.nextRun = Math.max(1, delay) - 1;
+        INBOX.add(task);
+        return task;
+    }
+
+    private static void updateLevel() {
+        double mspt = Bukkit.getAverageTickTime();
+        int level = LEVEL;
+        if (mspt >= SKIP_MILLIS) {
+            level = OVERLOADED;
+        } else if (level == OVERLOADED && mspt < SKIP_MILLIS - RECOVER_MARGIN_MILLIS) {
+            level = STRETCHED;
+        }
+        if (mspt >= STRETCH_MILLIS) {
+            level = Math.max(level, STRETCHED);
+        } else if (level == STRETCHED && mspt < STRETCH_MILLIS - RECOVER_MARGIN_MILLIS) {
+            level = NORMAL;
+        }
+        LEVEL = level;
+    }
+
+    private static void tick() {
+        long tick = ++TICK;
+        AdaptiveTask submitted;
+        while ((submitted = INBOX.poll()) != null) {
+            submitted.nextRun += tick;
+            // First run is never held back by a stretched period
+            submitted.lastRun = Long.MIN_VALUE / 2;
+            TASKS.add(submitted);
+        }
+        updateLevel();
+        int[] factors = FACTORS[LEVEL];
+
+        int size = TASKS.size();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            AdaptiveTask task = TASKS.get(i);
+            if (task.cancelled) continue;
+            TASKS.set(kept++, task);
+            if (tick < task.nextRun) continue;
+
+            int factor = factors[task.priority.ordinal()];
+            if (factor == 0) {
+                task.currentPeriod = task.period;
+                task.nextRun = tick + task.period;
+                task.skipped.increment();
+                continue;
+            }
+            long period = task.period * factor;
+            task.currentPeriod = period;
+            if (tick - task.lastRun < period) {
+                task.nextRun = task.lastRun + period;
+                task.deferred.increment();
+                continue;
+            }
+            if (task.async && task.running.get()) {
+                // Previous run is still going, try again next tick
+                task.nextRun = tick + 1;
+                task.deferred.increment();
+                continue;
+            }
+            task.lastRun = tick;
+            task.nextRun = tick + period;
+            run(task);
+        }
+        TASKS.subList(kept, size).clear();
+    }
+
+    private static void run(AdaptiveTask task) {
+        task.runs.increment();
+        if (!task.async) {
+            runSafely(task);
+            return;
+        }
+        task.running.set(true);
+        ASYNC_EXECUTOR.execute(() -> {
+            try {
+                runSafely(task);
+            } finally {
+                task.running.set(false);
+            }
+        });
+    }
+
+    private static void runSafely(AdaptiveTask task) {
+        try {
+            task.runnable.run();
+        } catch (Throwable throwable) {
+            PLUGIN.getLogger().log(Level.SEVERE, "Could not run adaptive task", throwable);
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.shanebeestudios.coreapi.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Handle of a repeating task scheduled with {@link TaskUtils#runAdaptiveTimer(Runnable, long, long, TaskPriority)}
+ * <p>The period of an adaptive task is stretched, or its runs are skipped, while the server is over its tick budget.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public final class AdaptiveTask {
+
+    final Runnable runnable;
+    final long period;
+    final TaskPriority priority;
+    final boolean async;
+    // Only touched on the main thread
+    long nextRun;
+    long lastRun;
+    volatile long currentPeriod;
+    volatile boolean cancelled;
+    final AtomicBoolean running = new AtomicBoolean();
+    final LongAdder runs = new LongAdder();
+    final LongAdder skipped = new LongAdder();
+    final LongAdder deferred = new LongAdder();
+
+    AdaptiveTask(Runnable runnable, long period, TaskPriority priority, boolean async) {
+        this.runnable = runnable;
+        this.period = period;
+        this.currentPeriod = period;
+        this.priority = priority;
+        this.async = async;
+    }
+
+    /**
+     * Cancel this task
+     * <p>Can be called from any thread, a run already in progress is not interrupted.</p>
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Check whether this task was cancelled
+     *
+     * @return True if cancelled
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Get the period this task runs at when the server is not under load
+     *
+     * @return Base period in ticks
+     */
+    public long getPeriod() {
+        return this.period;
+    }
+
+    /**
+     * Get the period this task currently runs at
+     *
+     * @return Current period in ticks
+     */
+    public long getCurrentPeriod() {
+        return this.currentPeriod;
+    }
+
+    /**
+     * Get the priority of this task
+     *
+     * @return Priority of task
+     */
+    public @NotNull TaskPriority getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * Get the amount of times this task ran
+     *
+     * @return Amount of runs
+     */
+    public long getRuns() {
+        return this.runs.sum();
+    }
+
+    /**
+     * Get the amount of runs skipped because the server was overloaded
+     *
+     * @return Amount of skipped runs
+     */
+    public long getSkippedRuns() {
+        return this.skipped.sum();
+    }
+
+    /**
+     * Get the amount of runs pushed back because the period was stretched, or the previous async run was still running
+     *
+     * @return Amount of deferred runs
+     */
+    public long getDeferredRuns() {
+        return this.deferred.sum();
+    }
+
+    /**
+     * Reset the run counts of this task
+     */
+    public void resetStats() {
+        this.runs.reset();
+        this.skipped.reset();
+        this.deferred.reset();
+    }
+
+}
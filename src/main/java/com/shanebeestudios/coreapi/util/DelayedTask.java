@@ -0,0 +1,85 @@
+package com.shanebeestudios.coreapi.util;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Handle of a task scheduled with {@link TaskUtils#scheduleLater(Runnable, long)}
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public final class DelayedTask {
+
+    private static final int WAITING = 0;
+    private static final int CANCELLED = 1;
+    private static final int DONE = 2;
+
+    final Runnable runnable;
+    final boolean async;
+    long deadline;
+    // Links of the wheel slot this task is in, only touched on the main thread
+    DelayedTask previous;
+    DelayedTask next;
+    TimingWheel.Slot slot;
+    private volatile int state = WAITING;
+
+    DelayedTask(Runnable runnable, boolean async, long deadline) {
+        this.runnable = runnable;
+        this.async = async;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Cancel this task
+     * <p>Can be called from any thread.</p>
+     *
+     * @return False if the task already ran or was cancelled
+     */
+    public boolean cancel() {
+        synchronized (this) {
+            if (this.state != WAITING) return false;
+            this.state = CANCELLED;
+        }
+        TimingWheel.cancelled(this);
+        return true;
+    }
+
+    /**
+     * Check whether this task was cancelled
+     *
+     * @return True if cancelled
+     */
+    public boolean isCancelled() {
+        return this.state == CANCELLED;
+    }
+
+    /**
+     * Check whether this task ran, or was handed off to its async thread
+     *
+     * @return True if done
+     */
+    public boolean isDone() {
+        return this.state == DONE;
+    }
+
+    /**
+     * Get the amount of ticks until this task runs
+     *
+     * @return Ticks until task runs, 0 if done or cancelled
+     */
+    public long getRemainingTicks() {
+        if (this.state != WAITING) return 0;
+        return Math.max(0, this.deadline - TimingWheel.getTick());
+    }
+
+    /**
+     * Mark this task as done, if it was not cancelled
+     *
+     * @return False if cancelled
+     */
+    synchronized boolean markDone() {
+        if (this.state != WAITING) return false;
+        this.state = DONE;
+        return true;
+    }
+
+}
@@ -0,0 +1,249 @@
+package com.shanebeestudios.coreapi.util;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Primitives;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typed accessor of a field, resolved once and cached
+ * <p>Non-final fields are accessed through a {@link VarHandle}, final fields through a setter {@link MethodHandle}.
+ * Both are adapted to erased types once, so every access is a single exact invocation.</p>
+ * <p>Handles held by an accessor are not constants to the JIT. For hot paths, store {@link #getVarHandle()}
+ * in a {@code static final} field and use it directly.</p>
+ *
+ * @param <T> Type of object which holds the field
+ * @param <V> Type of value of the field
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public final class FieldAccessor<T, V> {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final ClassValue<Map<String, FieldAccessor<?, ?>>> CACHE = new ClassValue<>() {
+        @Override
+        protected Map<String, FieldAccessor<?, ?>> computeValue(@NotNull Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Get an accessor of a field
+     *
+     * @param owner Class which declares the field
+     * @param name  Name of field
+     * @param type  Type of value of the field, primitive fields may use either the primitive or its wrapper
+     * @param <T>   Type of object which holds the field
+     * @param <V>   Type of value of the field
+     * @return Accessor of field
+     * @throws ReflectionException If the field doesn't exist, is not of the type or can't be accessed
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, V> @NotNull FieldAccessor<T, V> of(@NotNull Class<T> owner, @NotNull String name, @NotNull Class<V> type) {
+        Preconditions.checkArgument(type != null, "Type cannot be null");
+        FieldAccessor<T, ?> accessor = of(owner, name);
+        if (!Primitives.wrap(type).isAssignableFrom(Primitives.wrap(accessor.type))) {
+            throw new ReflectionException("Field '" + name + "' in " + owner.getName() + " is of type "
+                + accessor.type.getName() + ", not " + type.getName());
+        }
+        return (FieldAccessor<T, V>) accessor;
+    }
+
+    /**
+     * Get an accessor of a field, without checking its type
+     *
+     * @param owner Class which declares the field
+     * @param name  Name of field
+     * @param <T>   Type of object which holds the field
+     * @return Accessor of field
+     * @throws ReflectionException If the field doesn't exist or can't be accessed
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> @NotNull FieldAccessor<T, Object> of(@NotNull Class<T> owner, @NotNull String name) {
+        Preconditions.checkArgument(owner != null, "Owner class cannot be null");
+        Preconditions.checkArgument(name != null, "Name cannot be null");
+        Map<String, FieldAccessor<?, ?>> accessors = CACHE.get(owner);
+        FieldAccessor<?, ?> accessor = accessors.get(name);
+        if (accessor == null) {
+            accessor = accessors.computeIfAbsent(name, key -> create(owner, key));
+        }
+        return (FieldAccessor<T, Object>) accessor;
+    }
+
+    private static <T> FieldAccessor<T, Object> create(Class<T> owner, String name) {
+        Field field;
+        try {
+            field = owner.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new ReflectionException("Field '" + name + "' does not exist in " + owner.getName(), e);
+        }
+        boolean isStatic = Modifier.isStatic(field.getModifiers());
+        try {
+            MethodHandles.Lookup lookup = getLookup(owner, field);
+            VarHandle handle = lookup.unreflectVarHandle(field);
+            MethodHandle getter;
+            MethodHandle setter;
+            if (Modifier.isFinal(field.getModifiers())) {
+                // VarHandles of final fields are read only, an accessible setter can still write instance fields
+                getter = lookup.unreflectGetter(field);
+                setter = isStatic ? null : getFinalSetter(lookup, field);
+            } else {
+                getter = handle.toMethodHandle(VarHandle.AccessMode.GET);
+                setter = handle.toMethodHandle(VarHandle.AccessMode.SET);
+            }
+            if (isStatic) {
+                // Static fields ignore the object
+                getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                if (setter != null) setter = MethodHandles.dropArguments(setter, 0, Object.class);
+            }
+            getter = getter.asType(GETTER_TYPE);
+            if (setter != null) setter = setter.asType(SETTER_TYPE);
+            return new FieldAccessor<>(owner, name, field.getType(), isStatic, handle, getter, setter);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new ReflectionException("Field '" + name + "' in " + owner.getName() + " cannot be accessed", e);
+        }
+    }
+
+    private static @Nullable MethodHandle getFinalSetter(MethodHandles.Lookup lookup, Field field) {
+        try {
+            field.setAccessible(true);
+            return lookup.unreflectSetter(field);
+        } catch (IllegalAccessException | RuntimeException e) {
+            // Final fields of records and hidden classes are never writable, they can still be read
+            return null;
+        }
+    }
+
+    private static MethodHandles.Lookup getLookup(Class<?> owner, Field field) throws IllegalAccessException {
+        try {
+            return MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            // Modules which don't open the package, such as the JDK, still allow access to public members
+            if (Modifier.isPublic(field.getModifiers()) && Modifier.isPublic(owner.getModifiers())) return MethodHandles.lookup();
+            throw e;
+        }
+    }
+
+    private final Class<T> owner;
+    private final String name;
+    private final Class<?> type;
+    private final boolean isStatic;
+    private final VarHandle handle;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    private FieldAccessor(Class<T> owner, String name, Class<?> type, boolean isStatic, VarHandle handle,
+                          MethodHandle getter, @Nullable MethodHandle setter) {
+        this.owner = owner;
+        this.name = name;
+        this.type = type;
+        this.isStatic = isStatic;
+        this.handle = handle;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * Get the value of this field
+     *
+     * @param object Object which holds the field, ignored for static fields
+     * @return Value of field
+     */
+    @SuppressWarnings("unchecked")
+    public V get(@Nullable T object) {
+        checkObject(object);
+        try {
+            return (V) this.getter.invokeExact((Object) object);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ReflectionException("Could not get field '" + this.name + "' in " + this.owner.getName(), e);
+        }
+    }
+
+    /**
+     * Set the value of this field
+     *
+     * @param object Object which holds the field, ignored for static fields
+     * @param value  Value to set
+     * @throws ReflectionException If the field is final and can't be written, such as static final fields and fields of records
+     */
+    public void set(@Nullable T object, V value) {
+        if (this.setter == null) {
+            throw new ReflectionException("Field '" + this.name + "' in " + this.owner.getName() + " is final and cannot be written");
+        }
+        checkObject(object);
+        try {
+            this.setter.invokeExact((Object) object, (Object) value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ReflectionException("Could not set field '" + this.name + "' in " + this.owner.getName(), e);
+        }
+    }
+
+    private void checkObject(@Nullable T object) {
+        if (object == null && !this.isStatic) {
+            throw new ReflectionException("Field '" + this.name + "' in " + this.owner.getName() + " is not static, object cannot be null");
+        }
+    }
+
+    /**
+     * Get the class which declares this field
+     *
+     * @return Owner class
+     */
+    public @NotNull Class<T> getOwner() {
+        return this.owner;
+    }
+
+    /**
+     * Get the name of this field
+     *
+     * @return Name of field
+     */
+    public @NotNull String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get the declared type of this field
+     *
+     * @return Type of field
+     */
+    public @NotNull Class<?> getType() {
+        return this.type;
+    }
+
+    /**
+     * Get the raw handle of this field
+     * <p>Unlike this accessor, the handle is typed exactly: instance fields take the owner as coordinate,
+     * static fields take none. Handles of final fields are read only.</p>
+     *
+     * @return Handle of field
+     */
+    public @NotNull VarHandle getVarHandle() {
+        return this.handle;
+    }
+
+    /**
+     * Check whether this field is static
+     *
+     * @return True if static
+     */
+    public boolean isStatic() {
+        return this.isStatic;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.shanebeestudios.coreapi.util;
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pending keyed tasks, where repeated submissions for the same key collapse into a single run
+ * <p>Each key has at most one task in the {@link TimingWheel}. A debounced key moving its deadline doesn't reschedule,
+ * the task checks the deadline once it fires and waits out the remainder if it moved.</p>
+ */
+final class KeyedTasks {
+
+    private static final Map<Object, Pending> PENDING = new ConcurrentHashMap<>();
+    private static final LongAdder COALESCED = new LongAdder();
+
+    private KeyedTasks() {
+    }
+
+    static boolean submit(Plugin plugin, Executor asyncExecutor, Object key, Runnable runnable, long delay,
+                          boolean debounce, boolean async) {
+        long ticks = Math.max(1, delay);
+        Pending[] created = new Pending[1];
+        PENDING.compute(key, (k, pending) -> {
+            if (pending == null) {
+                pending = new Pending(runnable, debounce, async, TimingWheel.getTick() + ticks);
+                created[0] = pending;
+            } else {
+                // Latest submission wins
+                pending.runnable = runnable;
+                if (pending.debounce) pending.deadline = TimingWheel.getTick() + ticks;
+            }
+            return pending;
+        });
+        Pending pending = created[0];
+        if (pending == null) {
+            COALESCED.increment();
+            return false;
+        }
+        DelayedTask task = TimingWheel.schedule(plugin, asyncExecutor, () -> fire(plugin, asyncExecutor, key), ticks, false);
+        pending.task = task;
+        // Cancelled before its task was scheduled
+        if (PENDING.get(key) != pending) task.cancel();
+        return true;
+    }
+
+    static boolean cancel(Object key) {
+        Pending pending = PENDING.remove(key);
+        if (pending == null) return false;
+        DelayedTask task = pending.task;
+        if (task != null) task.cancel();
+        return true;
+    }
+
+    static boolean isPending(Object key) {
+        return PENDING.containsKey(key);
+    }
+
+    static long getCoalesced() {
+        return COALESCED.sum();
+    }
+
+    static void resetCoalesced() {
+        COALESCED.reset();
+    }
+
+    private static void fire(Plugin plugin, Executor asyncExecutor, Object key) {
+        Pending[] due = new Pending[1];
+        PENDING.computeIfPresent(key, (k, pending) -> {
+            long remaining = pending.deadline - TimingWheel.getTick();
+            if (remaining > 0) {
+                pending.task = TimingWheel.schedule(plugin, asyncExecutor, () -> fire(plugin, asyncExecutor, key), remaining, false);
+                return pending;
+            }
+            due[0] = pending;
+            return null;
+        });
+        Pending pending = due[0];
+        if (pending == null) return;
+        if (pending.async) {
+            asyncExecutor.execute(pending.runnable);
+        } else {
+            pending.runnable.run();
+        }
+    }
+
+    private static final class Pending {
+
+        private final boolean debounce;
+        private final boolean async;
+        private volatile Runnable runnable;
+        private volatile long deadline;
+        private volatile DelayedTask task;
+
+        private Pending(Runnable runnable, boolean debounce, boolean async, long deadline) {
+            this.runnable = runnable;
+            this.debounce = debounce;
+            this.async = async;
+            this.deadline = deadline;
+        }
+
+    }
+
+}
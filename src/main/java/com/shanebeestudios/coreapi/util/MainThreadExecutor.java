@@ -0,0 +1,58 @@
+package com.shanebeestudios.coreapi.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Executor running tasks on the main thread
+ * <p>Tasks are queued and all tasks queued within a tick are run by a single scheduler task,
+ * rather than scheduling a task for each of them.</p>
+ */
+final class MainThreadExecutor implements Executor {
+
+    private final Plugin plugin;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    MainThreadExecutor(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        this.queue.add(command);
+        if (this.scheduled.compareAndSet(false, true)) {
+            try {
+                Bukkit.getScheduler().runTask(this.plugin, this::drain);
+            } catch (RuntimeException e) {
+                // Plugin is disabled, nothing will run these anymore
+                this.queue.remove(command);
+                this.scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        this.scheduled.set(false);
+        // Tasks queued while draining wait for the next tick, so a task queueing itself can't hold up the tick
+        int size = this.queue.size();
+        for (int i = 0; i < size; i++) {
+            Runnable task = this.queue.poll();
+            if (task == null) break;
+            try {
+                task.run();
+            } catch (Throwable throwable) {
+                this.plugin.getLogger().log(Level.SEVERE, "Could not run main thread task", throwable);
+            }
+        }
+    }
+
+}
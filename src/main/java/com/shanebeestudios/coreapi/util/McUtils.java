@@ -6,6 +6,7 @@ import com.mojang.datafixers.util.Pair;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.core.Holder;
+import net.minecraft.core.MappedRegistry;
 import net.minecraft.core.Registry;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceKey;
@@ -42,14 +43,14 @@ import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -63,17 +64,25 @@ public class McUtils {
 
     private static final BlockData AIR = Material.AIR.createBlockData();
     private static final Object UNBOUND_TAG_SET;
+    @SuppressWarnings("rawtypes")
+    private static final FieldAccessor<MappedRegistry, Boolean> REGISTRY_FROZEN =
+        FieldAccessor.of(MappedRegistry.class, "frozen", boolean.class);
+    @SuppressWarnings("rawtypes")
+    private static final FieldAccessor<MappedRegistry, Object> REGISTRY_ALL_TAGS =
+        FieldAccessor.of(MappedRegistry.class, "allTags");
+    @SuppressWarnings("rawtypes")
+    private static final FieldAccessor<MappedRegistry, Map> REGISTRY_INTRUSIVE_HOLDERS =
+        FieldAccessor.of(MappedRegistry.class, "unregisteredIntrusiveHolders", Map.class);
 
     static {
+        Class<?> tagSetClass;
         try {
-            Class<?> tagSetClass = Class.forName("net.minecraft.core.MappedRegistry$TagSet");
-            Method unboundMethod = tagSetClass.getDeclaredMethod("unbound");
-            unboundMethod.setAccessible(true);
-            UNBOUND_TAG_SET = unboundMethod.invoke(null);
-        } catch (ClassNotFoundException | IllegalAccessException |
-                 NoSuchMethodException | InvocationTargetException e) {
-            throw new RuntimeException(e);
+            tagSetClass = Class.forName("net.minecraft.core.MappedRegistry$TagSet");
+        } catch (ClassNotFoundException e) {
+            throw new ReflectionException("MappedRegistry$TagSet does not exist", e);
         }
+        Supplier<Object> unbound = MethodInvoker.method(Supplier.class, tagSetClass, "unbound");
+        UNBOUND_TAG_SET = unbound.get();
     }
 
     /**
@@ -223,9 +232,12 @@ public class McUtils {
         Preconditions.checkArgument(registryKey != null, "ResourceKey cannot be null");
         Registry<T> registry = MinecraftServer.getServer().registryAccess().lookupOrThrow(registryKey);
         if (unfreeze) {
-            ReflectionUtils.setField("frozen", registry, false);
-            ReflectionUtils.setField("allTags", registry, UNBOUND_TAG_SET);
-            ReflectionUtils.setField("unregisteredIntrusiveHolders", registry, new IdentityHashMap<>());
+            if (!(registry instanceof MappedRegistry<T> mappedRegistry)) {
+                throw new IllegalArgumentException("Registry '" + registryKey.location() + "' cannot be unfrozen");
+            }
+            REGISTRY_FROZEN.set(mappedRegistry, false);
+            REGISTRY_ALL_TAGS.set(mappedRegistry, UNBOUND_TAG_SET);
+            REGISTRY_INTRUSIVE_HOLDERS.set(mappedRegistry, new IdentityHashMap<>());
         }
         return registry;
     }
@@ -0,0 +1,297 @@
+package com.shanebeestudios.coreapi.util;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Generates implementations of functional interfaces which call a method or constructor, resolved once and cached
+ * <p>For instance methods the first parameter of the interface is the object the method is called on.
+ * Parameter and return types of the interface may be supertypes of those of the method.</p>
+ * <p>Implementations are generated through {@link LambdaMetafactory}, which runs as fast as a direct call.
+ * This requires the member to be public, or its class to be in the same module as this class,
+ * as well as the interface to be visible to the class loader of the generated class.
+ * Otherwise {@link Runnable}, {@link Supplier}, {@link Function}, {@link BiFunction}, {@link Consumer}
+ * and {@link BiConsumer} are implemented by calling an exact {@link MethodHandle},
+ * any other interface falls back to {@link MethodHandleProxies}.</p>
+ * <p>Store invokers in {@code static final} fields, so the JIT can inline them.</p>
+ * <pre>{@code
+ * private static final Function<Object, Object> GET_HANDLE = MethodInvoker.method(Function.class, Foo.class, "getHandle");
+ * }</pre>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public final class MethodInvoker {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ClassValue<Map<Key, Object>> CACHE = new ClassValue<>() {
+        @Override
+        protected Map<Key, Object> computeValue(@NotNull Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private MethodInvoker() {
+    }
+
+    /**
+     * Get an implementation of a functional interface which calls a method
+     *
+     * @param type           Functional interface to implement
+     * @param owner          Class which declares the method
+     * @param name           Name of method
+     * @param parameterTypes Parameter types of method, excluding the object an instance method is called on
+     * @param <F>            Type of functional interface
+     * @return Implementation of interface
+     * @throws ReflectionException If the method doesn't exist, can't be accessed or doesn't fit the interface
+     */
+    public static <F> @NotNull F method(@NotNull Class<? super F> type, @NotNull Class<?> owner, @NotNull String name,
+                                        @NotNull Class<?>... parameterTypes) {
+        Preconditions.checkArgument(name != null, "Name cannot be null");
+        return get(type, owner, name, parameterTypes);
+    }
+
+    /**
+     * Get an implementation of a functional interface which calls a constructor
+     *
+     * @param type           Functional interface to implement
+     * @param owner          Class to construct
+     * @param parameterTypes Parameter types of constructor
+     * @param <F>            Type of functional interface
+     * @return Implementation of interface
+     * @throws ReflectionException If the constructor doesn't exist, can't be accessed or doesn't fit the interface
+     */
+    public static <F> @NotNull F constructor(@NotNull Class<? super F> type, @NotNull Class<?> owner,
+                                             @NotNull Class<?>... parameterTypes) {
+        return get(type, owner, null, parameterTypes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <F> F get(Class<? super F> type, Class<?> owner, String name, Class<?>[] parameterTypes) {
+        Preconditions.checkArgument(type != null, "Type cannot be null");
+        Preconditions.checkArgument(owner != null, "Owner class cannot be null");
+        Preconditions.checkArgument(parameterTypes != null, "Parameter types cannot be null");
+        Key key = new Key(type, name, List.of(parameterTypes));
+        Map<Key, Object> invokers = CACHE.get(owner);
+        Object invoker = invokers.get(key);
+        if (invoker == null) {
+            invoker = invokers.computeIfAbsent(key, k -> create(type, owner, name, parameterTypes));
+        }
+        return (F) invoker;
+    }
+
+    private static Object create(Class<?> type, Class<?> owner, String name, Class<?>[] parameterTypes) {
+        String description = owner.getName() + (name == null ? "" : "#" + name) + List.of(parameterTypes);
+        Method sam = findSam(type);
+        MethodHandles.Lookup lookup;
+        Executable executable;
+        MethodHandle target;
+        try {
+            executable = name == null ? owner.getDeclaredConstructor(parameterTypes) : owner.getDeclaredMethod(name, parameterTypes);
+            lookup = getLookup(owner, executable);
+            target = executable instanceof Method method ? lookup.unreflect(method) : lookup.unreflectConstructor((Constructor<?>) executable);
+        } catch (NoSuchMethodException e) {
+            throw new ReflectionException(description + " does not exist", e);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new ReflectionException(description + " cannot be accessed", e);
+        }
+        if (target.type().parameterCount() != sam.getParameterCount()) {
+            throw new ReflectionException(description + " takes " + target.type().parameterCount()
+                + " parameters, " + type.getName() + " passes " + sam.getParameterCount());
+        }
+
+        MethodType samType = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+        MethodHandles.Lookup caller = getMetafactoryCaller(type, owner, executable, lookup);
+        if (caller != null) {
+            try {
+                return LambdaMetafactory.metafactory(caller, sam.getName(), MethodType.methodType(type), samType,
+                    target, specialize(samType, target.type())).getTarget().invoke();
+            } catch (LambdaConversionException | RuntimeException ignore) {
+                // Fall back to calling the handle
+            } catch (Throwable e) {
+                throw new ReflectionException("Could not create invoker of " + description, e);
+            }
+        }
+        try {
+            return createAdapter(type, target.asType(samType.erase()));
+        } catch (RuntimeException e) {
+            throw new ReflectionException(description + " does not fit " + type.getName(), e);
+        }
+    }
+
+    private static MethodHandles.Lookup getLookup(Class<?> owner, Executable executable) throws IllegalAccessException {
+        try {
+            return MethodHandles.privateLookupIn(owner, LOOKUP);
+        } catch (IllegalAccessException e) {
+            // Modules which don't open the package, such as the JDK, still allow access to public members
+            if (Modifier.isPublic(executable.getModifiers()) && Modifier.isPublic(owner.getModifiers())) return LOOKUP;
+            throw e;
+        }
+    }
+
+    private static Method findSam(Class<?> type) {
+        if (!type.isInterface()) throw new ReflectionException(type.getName() + " is not an interface");
+        Method sam = null;
+        for (Method method : type.getMethods()) {
+            if (!Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method)) continue;
+            if (sam != null) throw new ReflectionException(type.getName() + " is not a functional interface");
+            sam = method;
+        }
+        if (sam == null) throw new ReflectionException(type.getName() + " is not a functional interface");
+        return sam;
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get a lookup which the LambdaMetafactory accepts for this member, or null if there is none
+     */
+    private static MethodHandles.Lookup getMetafactoryCaller(Class<?> type, Class<?> owner, Executable executable,
+                                                             MethodHandles.Lookup lookup) {
+        // Owner is in the same module, the generated class becomes a nestmate of it
+        if (lookup.hasFullPrivilegeAccess() && isVisible(type, owner.getClassLoader())) return lookup;
+        // Public members can be called from a class generated next to this one
+        if (Modifier.isPublic(executable.getModifiers()) && Modifier.isPublic(owner.getModifiers())
+            && isVisible(type, MethodInvoker.class.getClassLoader()) && isVisible(owner, MethodInvoker.class.getClassLoader())) {
+            return LOOKUP;
+        }
+        return null;
+    }
+
+    private static boolean isVisible(Class<?> type, ClassLoader loader) {
+        try {
+            return Class.forName(type.getName(), false, loader) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Narrow reference types of the interface method to those of the target, as far as they are subtypes
+     */
+    private static MethodType specialize(MethodType samType, MethodType targetType) {
+        Class<?>[] parameters = new Class<?>[samType.parameterCount()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = specialize(samType.parameterType(i), targetType.parameterType(i));
+        }
+        Class<?> returnType = samType.returnType() == void.class ? void.class : specialize(samType.returnType(), targetType.returnType());
+        return MethodType.methodType(returnType, parameters);
+    }
+
+    private static Class<?> specialize(Class<?> samType, Class<?> targetType) {
+        if (samType.isPrimitive() || targetType.isPrimitive() || !samType.isAssignableFrom(targetType)) return samType;
+        return targetType;
+    }
+
+    private static Object createAdapter(Class<?> type, MethodHandle handle) {
+        if (type == Runnable.class) return new RunnableAdapter(handle);
+        if (type == Supplier.class) return new SupplierAdapter(handle);
+        if (type == Function.class) return new FunctionAdapter(handle);
+        if (type == BiFunction.class) return new BiFunctionAdapter(handle);
+        if (type == Consumer.class) return new ConsumerAdapter(handle);
+        if (type == BiConsumer.class) return new BiConsumerAdapter(handle);
+        return MethodHandleProxies.asInterfaceInstance(type, handle);
+    }
+
+    private static ReflectionException rethrow(Throwable throwable) {
+        if (throwable instanceof RuntimeException runtimeException) throw runtimeException;
+        if (throwable instanceof Error error) throw error;
+        return new ReflectionException("Invoked method threw an exception", throwable);
+    }
+
+    private record Key(Class<?> type, String name, List<Class<?>> parameterTypes) {
+    }
+
+    private record RunnableAdapter(MethodHandle handle) implements Runnable {
+        @Override
+        public void run() {
+            try {
+                this.handle.invokeExact();
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+    private record SupplierAdapter(MethodHandle handle) implements Supplier<Object> {
+        @Override
+        public Object get() {
+            try {
+                return (Object) this.handle.invokeExact();
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+    private record FunctionAdapter(MethodHandle handle) implements Function<Object, Object> {
+        @Override
+        public Object apply(Object t) {
+            try {
+                return (Object) this.handle.invokeExact(t);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+    private record BiFunctionAdapter(MethodHandle handle) implements BiFunction<Object, Object, Object> {
+        @Override
+        public Object apply(Object t, Object u) {
+            try {
+                return (Object) this.handle.invokeExact(t, u);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+    private record ConsumerAdapter(MethodHandle handle) implements Consumer<Object> {
+        @Override
+        public void accept(Object t) {
+            try {
+                this.handle.invokeExact(t);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+    private record BiConsumerAdapter(MethodHandle handle) implements BiConsumer<Object, Object> {
+        @Override
+        public void accept(Object t, Object u) {
+            try {
+                this.handle.invokeExact(t, u);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+
+}
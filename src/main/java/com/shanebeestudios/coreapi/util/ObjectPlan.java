@@ -0,0 +1,414 @@
+package com.shanebeestudios.coreapi.util;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Primitives;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * Precompiled plan to copy, compare and hash objects of a class field by field
+ * <p>All instance fields of the class and its superclasses are resolved once, superclass fields first.
+ * Each operation is compiled into a single {@link MethodHandle} over {@link VarHandle VarHandles} of those fields,
+ * so primitive fields are never boxed and running a plan doesn't allocate, apart from the copy itself.</p>
+ * <p>All operations are shallow, referenced objects are shared by copies and compared with {@link Object#equals(Object)}.
+ * Records are copied through their canonical constructor, other classes are allocated without running a constructor
+ * before their fields are copied.</p>
+ *
+ * @param <T> Type of object
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public final class ObjectPlan<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType COPY_INTO_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType EQUALS_TYPE = MethodType.methodType(boolean.class, Object.class, Object.class);
+    private static final MethodType HASH_TYPE = MethodType.methodType(int.class, Object.class);
+    private static final MethodType COPY_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodHandle ALLOCATE;
+    private static final MethodHandle OBJECTS_EQUALS;
+    private static final MethodHandle OBJECTS_HASH;
+    private static final MethodHandle MIX_HASH;
+    private static final ClassValue<ObjectPlan<?>> CACHE = new ClassValue<>() {
+        @Override
+        protected ObjectPlan<?> computeValue(@NotNull Class<?> type) {
+            return new ObjectPlan<>(type);
+        }
+    };
+
+    static {
+        try {
+            // Looked up by name, referencing it directly causes a compiler warning which can't be suppressed
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Object unsafe = FieldAccessor.of(unsafeClass, "theUnsafe").get(null);
+            ALLOCATE = LOOKUP.findVirtual(unsafeClass, "allocateInstance", MethodType.methodType(Object.class, Class.class))
+                .bindTo(unsafe);
+            OBJECTS_EQUALS = LOOKUP.findStatic(Objects.class, "equals", EQUALS_TYPE);
+            OBJECTS_HASH = LOOKUP.findStatic(Objects.class, "hashCode", HASH_TYPE);
+            MIX_HASH = LOOKUP.findStatic(ObjectPlan.class, "mix", MethodType.methodType(int.class, int.class, int.class));
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            throw new ReflectionException("Could not set up object plans", e);
+        }
+    }
+
+    /**
+     * Get the plan of a class
+     * <p>Plans are compiled once per class and cached.</p>
+     *
+     * @param type Class to get plan for
+     * @param <T>  Type of object
+     * @return Plan of class
+     * @throws ReflectionException If the fields of the class can't be accessed
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> @NotNull ObjectPlan<T> of(@NotNull Class<T> type) {
+        Preconditions.checkArgument(type != null, "Type cannot be null");
+        Preconditions.checkArgument(!type.isPrimitive() && !type.isArray() && !type.isInterface(),
+            "Type has to be a class: " + type.getName());
+        return (ObjectPlan<T>) CACHE.get(type);
+    }
+
+    private final Class<T> type;
+    private final List<String> fieldNames;
+    private final MethodHandle[] fieldEquals;
+    private final MethodHandle equals;
+    private final MethodHandle hash;
+    // Null if this class can't be copied, with the reason in copyFailure
+    private final MethodHandle copy;
+    private final MethodHandle allocate;
+    private final MethodHandle copyInto;
+    private final ReflectionException copyFailure;
+
+    private ObjectPlan(Class<T> type) {
+        this.type = type;
+        List<Field> fields = getInstanceFields(type);
+        List<String> names = new ArrayList<>(fields.size());
+        this.fieldEquals = new MethodHandle[fields.size()];
+        MethodHandle[] getters = new MethodHandle[fields.size()];
+        MethodHandle equals = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, Object.class, Object.class);
+        MethodHandle hash = MethodHandles.dropArguments(MethodHandles.constant(int.class, 1), 0, Object.class);
+        MethodHandle falseHandle = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, Object.class, Object.class);
+        try {
+            for (int i = 0; i < fields.size(); i++) {
+                Field field = fields.get(i);
+                names.add(field.getName());
+                MethodHandle getter = getLookup(field).unreflectVarHandle(field).toMethodHandle(VarHandle.AccessMode.GET);
+                getters[i] = getter;
+                this.fieldEquals[i] = createEquals(getter, field.getType());
+                MethodHandle fieldHash = createHash(getter, field.getType());
+                // Combine as 31 * hash + field hash, like Objects.hash
+                hash = MethodHandles.permuteArguments(MethodHandles.filterArguments(MIX_HASH, 0, hash, fieldHash), HASH_TYPE, 0, 0);
+            }
+            // Check fields in order, stopping at the first difference
+            for (int i = this.fieldEquals.length - 1; i >= 0; i--) {
+                equals = MethodHandles.guardWithTest(this.fieldEquals[i], equals, falseHandle);
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new ReflectionException("Could not create plan of " + type.getName(), e);
+        }
+        this.fieldNames = Collections.unmodifiableList(names);
+        this.equals = equals;
+        this.hash = hash;
+
+        MethodHandle copy = null;
+        MethodHandle allocate = null;
+        MethodHandle copyInto = null;
+        ReflectionException copyFailure = null;
+        try {
+            if (type.isRecord()) {
+                copy = createRecordCopy(type, fields, getters);
+            } else if (Modifier.isAbstract(type.getModifiers()) || type.isEnum()) {
+                copyFailure = new ReflectionException(type.getName() + " is abstract or an enum and can't be copied");
+            } else {
+                copyInto = createCopyInto(fields, getters);
+                // Copies are allocated without a constructor, then all fields are copied into them
+                allocate = MethodHandles.insertArguments(ALLOCATE, 0, type);
+            }
+        } catch (IllegalAccessException | NoSuchMethodException | RuntimeException e) {
+            copyFailure = new ReflectionException(type.getName() + " can't be copied", e);
+            copy = null;
+            allocate = null;
+            copyInto = null;
+        }
+        this.copy = copy == null ? null : copy.asType(COPY_TYPE);
+        this.allocate = allocate;
+        this.copyInto = copyInto;
+        this.copyFailure = copyFailure;
+    }
+
+    private static List<Field> getInstanceFields(Class<?> type) {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            hierarchy.add(current);
+        }
+        Collections.reverse(hierarchy);
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> current : hierarchy) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static MethodHandles.Lookup getLookup(Field field) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(field.getDeclaringClass(), LOOKUP);
+    }
+
+    private static MethodHandle createEquals(MethodHandle getter, Class<?> fieldType) throws IllegalAccessException {
+        MethodHandle equals;
+        if (fieldType.isPrimitive()) {
+            try {
+                equals = LOOKUP.findStatic(ObjectPlan.class, "equal", MethodType.methodType(boolean.class, fieldType, fieldType));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        } else {
+            equals = OBJECTS_EQUALS.asType(MethodType.methodType(boolean.class, fieldType, fieldType));
+        }
+        return MethodHandles.filterArguments(equals, 0, getter, getter).asType(EQUALS_TYPE);
+    }
+
+    private static MethodHandle createHash(MethodHandle getter, Class<?> fieldType) throws IllegalAccessException {
+        MethodHandle hash;
+        if (fieldType.isPrimitive()) {
+            try {
+                hash = LOOKUP.findStatic(Primitives.wrap(fieldType), "hashCode", MethodType.methodType(int.class, fieldType));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        } else {
+            hash = OBJECTS_HASH.asType(MethodType.methodType(int.class, fieldType));
+        }
+        return MethodHandles.filterReturnValue(getter, hash).asType(HASH_TYPE);
+    }
+
+    private static MethodHandle createRecordCopy(Class<?> type, List<Field> fields, MethodHandle[] getters)
+        throws IllegalAccessException, NoSuchMethodException {
+        Class<?>[] parameters = new Class<?>[fields.size()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = fields.get(i).getType();
+        }
+        MethodHandle constructor = MethodHandles.privateLookupIn(type, LOOKUP)
+            .findConstructor(type, MethodType.methodType(void.class, parameters));
+        // Pass every component of the source to the canonical constructor
+        MethodHandle copy = MethodHandles.filterArguments(constructor, 0, getters);
+        return MethodHandles.permuteArguments(copy, MethodType.methodType(type, type), new int[parameters.length]);
+    }
+
+    private static MethodHandle createCopyInto(List<Field> fields, MethodHandle[] getters) throws IllegalAccessException {
+        MethodHandle copyInto = MethodHandles.empty(COPY_INTO_TYPE);
+        for (int i = fields.size() - 1; i >= 0; i--) {
+            Field field = fields.get(i);
+            MethodHandle setter;
+            if (Modifier.isFinal(field.getModifiers())) {
+                // VarHandles of final fields are read only, an accessible setter can still write them
+                field.setAccessible(true);
+                setter = getLookup(field).unreflectSetter(field);
+            } else {
+                setter = getLookup(field).unreflectVarHandle(field).toMethodHandle(VarHandle.AccessMode.SET);
+            }
+            // (target, source) -> set(target, get(source)), as (source, target)
+            MethodHandle fieldCopy = MethodHandles.filterArguments(setter, 1, getters[i]);
+            fieldCopy = MethodHandles.permuteArguments(fieldCopy.asType(COPY_INTO_TYPE), COPY_INTO_TYPE, 1, 0);
+            copyInto = MethodHandles.foldArguments(copyInto, fieldCopy);
+        }
+        return copyInto;
+    }
+
+    /**
+     * Get the class of this plan
+     *
+     * @return Class of plan
+     */
+    public @NotNull Class<T> getType() {
+        return this.type;
+    }
+
+    /**
+     * Get the names of all fields of this plan, in the order they are handled
+     * <p>Field indexes passed by {@link #diff(Object, Object, IntConsumer)} are indexes in this list.
+     * Superclass fields come first, so a name may appear more than once if a subclass hides a field.</p>
+     *
+     * @return Names of fields
+     */
+    public @NotNull List<String> getFieldNames() {
+        return this.fieldNames;
+    }
+
+    /**
+     * Check whether objects of this plan can be copied
+     *
+     * @return False if the class is abstract or an enum, or a final field can't be written
+     */
+    public boolean canCopy() {
+        return this.copy != null || this.allocate != null;
+    }
+
+    /**
+     * Create a shallow copy of an object
+     *
+     * @param source Object to copy
+     * @return Copy of object
+     * @throws ReflectionException If objects of this plan can't be copied, see {@link #canCopy()}
+     */
+    @SuppressWarnings("unchecked")
+    public @NotNull T copy(@NotNull T source) {
+        Preconditions.checkArgument(source != null, "Source cannot be null");
+        checkType(source);
+        if (!canCopy()) throw this.copyFailure;
+        try {
+            if (this.copy != null) return (T) this.copy.invokeExact((Object) source);
+            Object target = (Object) this.allocate.invokeExact();
+            this.copyInto.invokeExact((Object) source, target);
+            return (T) target;
+        } catch (Throwable e) {
+            throw new ReflectionException("Could not copy " + this.type.getName(), e);
+        }
+    }
+
+    /**
+     * Copy all fields of an object into another object
+     *
+     * @param source Object to copy from
+     * @param target Object to copy into
+     * @throws ReflectionException If fields can't be written, which is always the case for records
+     */
+    public void copyInto(@NotNull T source, @NotNull T target) {
+        Preconditions.checkArgument(source != null, "Source cannot be null");
+        Preconditions.checkArgument(target != null, "Target cannot be null");
+        checkType(source);
+        checkType(target);
+        if (this.copyInto == null) {
+            throw this.copyFailure != null ? this.copyFailure : new ReflectionException("Fields of record " + this.type.getName() + " can't be written");
+        }
+        try {
+            this.copyInto.invokeExact((Object) source, (Object) target);
+        } catch (Throwable e) {
+            throw new ReflectionException("Could not copy " + this.type.getName(), e);
+        }
+    }
+
+    /**
+     * Check whether all fields of two objects are equal
+     *
+     * @param first  First object
+     * @param second Second object
+     * @return True if all fields are equal
+     */
+    public boolean fieldsEqual(@NotNull T first, @NotNull T second) {
+        Preconditions.checkArgument(first != null && second != null, "Objects cannot be null");
+        checkType(first);
+        checkType(second);
+        try {
+            return (boolean) this.equals.invokeExact((Object) first, (Object) second);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Find the fields which differ between two objects
+     *
+     * @param first      First object
+     * @param second     Second object
+     * @param difference Called with the index of each field which differs, see {@link #getFieldNames()}, may be null
+     * @return Amount of fields which differ
+     */
+    public int diff(@NotNull T first, @NotNull T second, @Nullable IntConsumer difference) {
+        Preconditions.checkArgument(first != null && second != null, "Objects cannot be null");
+        checkType(first);
+        checkType(second);
+        int differences = 0;
+        try {
+            for (int i = 0; i < this.fieldEquals.length; i++) {
+                if ((boolean) this.fieldEquals[i].invokeExact((Object) first, (Object) second)) continue;
+                differences++;
+                if (difference != null) difference.accept(i);
+            }
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+        return differences;
+    }
+
+    /**
+     * Hash all fields of an object
+     * <p>Combined in the same way as {@link Objects#hash(Object...)}, without boxing primitive fields.</p>
+     *
+     * @param object Object to hash
+     * @return Hash of fields
+     */
+    public int hash(@NotNull T object) {
+        Preconditions.checkArgument(object != null, "Object cannot be null");
+        checkType(object);
+        try {
+            return (int) this.hash.invokeExact((Object) object);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private void checkType(Object object) {
+        // Subclass fields would be ignored, plans have to match exactly
+        if (object.getClass() != this.type) {
+            throw new IllegalArgumentException("Object of " + object.getClass().getName() + " does not match plan of " + this.type.getName());
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable throwable) {
+        if (throwable instanceof RuntimeException runtimeException) return runtimeException;
+        if (throwable instanceof Error error) throw error;
+        return new ReflectionException("Could not read fields", throwable);
+    }
+
+    private static int mix(int hash, int fieldHash) {
+        return 31 * hash + fieldHash;
+    }
+
+    private static boolean equal(boolean a, boolean b) {
+        return a == b;
+    }
+
+    private static boolean equal(byte a, byte b) {
+        return a == b;
+    }
+
+    private static boolean equal(short a, short b) {
+        return a == b;
+    }
+
+    private static boolean equal(char a, char b) {
+        return a == b;
+    }
+
+    private static boolean equal(int a, int b) {
+        return a == b;
+    }
+
+    private static boolean equal(long a, long b) {
+        return a == b;
+    }
+
+    private static boolean equal(float a, float b) {
+        return Float.compare(a, b) == 0;
+    }
+
+    private static boolean equal(double a, double b) {
+        return Double.compare(a, b) == 0;
+    }
+
+}
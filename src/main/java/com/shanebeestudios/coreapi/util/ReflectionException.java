@@ -0,0 +1,19 @@
+package com.shanebeestudios.coreapi.util;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Thrown when a reflective lookup or access fails
+ */
+@ApiStatus.AvailableSince("1.2.0")
+public class ReflectionException extends RuntimeException {
+
+    public ReflectionException(String message) {
+        super(message);
+    }
+
+    public ReflectionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -2,12 +2,12 @@ package com.shanebeestudios.coreapi.util;
 
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.Field;
-
 /**
  * Utility class with shortcut methods for reflection
+ * <p>Fields are looked up through cached {@link FieldAccessor FieldAccessors},
+ * keep an accessor in a static field instead when accessing the same field often.</p>
  */
-@SuppressWarnings({"CallToPrintStackTrace", "unused"})
+@SuppressWarnings("unused")
 public class ReflectionUtils {
 
     private ReflectionUtils() {
@@ -20,16 +20,10 @@ public class ReflectionUtils {
      * @param clazz  Class with field
      * @param object Object which contains field
      * @return Object from field
+     * @throws ReflectionException If the field doesn't exist or can't be accessed
      */
     public static @Nullable Object getField(String field, Class<?> clazz, Object object) {
-        try {
-            Field f = clazz.getDeclaredField(field);
-            f.setAccessible(true);
-            return f.get(object);
-        } catch (IllegalAccessException | NoSuchFieldException ex) {
-            ex.printStackTrace();
-            return null;
-        }
+        return accessor(clazz, field).get(object);
     }
 
     /**
@@ -39,15 +33,10 @@ public class ReflectionUtils {
      * @param clazz  Class with field
      * @param object Object which holds field
      * @param toSet  Object to set
+     * @throws ReflectionException If the field doesn't exist or can't be accessed
      */
     public static void setField(String field, Class<?> clazz, Object object, Object toSet) {
-        try {
-            Field f = clazz.getDeclaredField(field);
-            f.setAccessible(true);
-            f.set(object, toSet);
-        } catch (IllegalAccessException | IllegalArgumentException | NoSuchFieldException ex) {
-            ex.printStackTrace();
-        }
+        accessor(clazz, field).set(object, toSet);
     }
 
     /**
@@ -56,15 +45,15 @@ public class ReflectionUtils {
      * @param field  Name of field to set
      * @param object Object which holds field
      * @param toSet  Object to set
+     * @throws ReflectionException If the field doesn't exist or can't be accessed
      */
     public static void setField(String field, Object object, Object toSet) {
-        try {
-            Field f = object.getClass().getDeclaredField(field);
-            f.setAccessible(true);
-            f.set(object, toSet);
-        } catch (IllegalAccessException | IllegalArgumentException | NoSuchFieldException ex) {
-            ex.printStackTrace();
-        }
+        accessor(object.getClass(), field).set(object, toSet);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FieldAccessor<Object, Object> accessor(Class<?> clazz, String field) {
+        return (FieldAccessor<Object, Object>) FieldAccessor.of(clazz, field);
     }
 
 }
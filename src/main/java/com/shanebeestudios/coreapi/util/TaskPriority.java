@@ -0,0 +1,26 @@
+package com.shanebeestudios.coreapi.util;
+
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Priority of work scheduled with {@link TaskUtils}
+ */
+@ApiStatus.AvailableSince("1.2.0")
+public enum TaskPriority {
+
+    /**
+     * Runs after all other work
+     */
+    LOW,
+
+    /**
+     * Default priority
+     */
+    NORMAL,
+
+    /**
+     * Runs before all other work
+     */
+    HIGH
+
+}
@@ -0,0 +1,94 @@
+package com.shanebeestudios.coreapi.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Snapshot of the runs of a task, recorded by the {@link TaskProfiler}
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public final class TaskProfile {
+
+    private final String name;
+    private final boolean async;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long overruns;
+
+    TaskProfile(String name, boolean async, long count, long totalNanos, long maxNanos, long overruns) {
+        this.name = name;
+        this.async = async;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.overruns = overruns;
+    }
+
+    /**
+     * Get the name of the task
+     * <p>This is the name given with {@link TaskProfiler#named(String, Runnable)},
+     * otherwise the class the task was created in.</p>
+     *
+     * @return Name of task
+     */
+    public @NotNull String getName() {
+        return this.name;
+    }
+
+    /**
+     * Check whether these runs happened off the main thread
+     *
+     * @return True if run async
+     */
+    public boolean isAsync() {
+        return this.async;
+    }
+
+    /**
+     * Get the amount of runs
+     *
+     * @return Amount of runs
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Get the total time of all runs
+     *
+     * @return Total time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    /**
+     * Get the time of the longest run
+     *
+     * @return Longest time in nanoseconds
+     */
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    /**
+     * Get the average time of a run
+     *
+     * @return Average time in nanoseconds
+     */
+    public double getAverageNanos() {
+        return this.count == 0 ? 0 : (double) this.totalNanos / this.count;
+    }
+
+    /**
+     * Get the amount of runs which took longer than the budget of the profiler
+     *
+     * @return Amount of overruns
+     */
+    public long getOverruns() {
+        return this.overruns;
+    }
+
+}
@@ -0,0 +1,365 @@
+package com.shanebeestudios.coreapi.util;
+
+import com.google.common.base.Preconditions;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Profiler of tasks run through {@link TaskUtils}
+ * <p>While enabled, every task given to TaskUtils is wrapped, the runs of each task are timed
+ * and grouped by name and by whether they ran on the main thread.
+ * While disabled, tasks are passed on as they are, so tasks submitted before enabling (such as repeating tasks)
+ * are not profiled. Tasks submitted while enabled only check a flag before running once it is disabled again.</p>
+ * <p>Tasks are named after the class they were created in, use {@link #named(String, Runnable)} to give them a name.
+ * Tasks given directly to the executors of {@link TaskUtils#getSyncExecutor()} and {@link TaskUtils#getAsyncExecutor()}
+ * are not profiled.</p>
+ */
+@ApiStatus.AvailableSince("1.2.0")
+@SuppressWarnings("unused")
+public final class TaskProfiler {
+
+    private static volatile boolean ENABLED = false;
+    private static volatile long BUDGET_NANOS = Long.MAX_VALUE;
+    private static final Map<String, Stats> SYNC = new ConcurrentHashMap<>();
+    private static final Map<String, Stats> ASYNC = new ConcurrentHashMap<>();
+    private static final ClassValue<String> CLASS_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(@NotNull Class<?> type) {
+            String name = type.getName();
+            // Lambdas are named after the class they were created in
+            int lambda = name.indexOf("$$Lambda");
+            return lambda == -1 ? name : name.substring(0, lambda);
+        }
+    };
+    private static BukkitTask DUMP_TASK;
+
+    private TaskProfiler() {
+    }
+
+    /**
+     * Start profiling tasks
+     *
+     * @param budget Time a single run may take before it counts as an overrun
+     */
+    public static void enable(@NotNull Duration budget) {
+        Preconditions.checkArgument(budget != null, "Budget cannot be null");
+        Preconditions.checkArgument(!budget.isNegative(), "Budget cannot be negative");
+        BUDGET_NANOS = budget.toNanos();
+        ENABLED = true;
+    }
+
+    /**
+     * Stop profiling tasks
+     * <p>Recorded profiles are kept until {@link #reset()}.</p>
+     */
+    public static void disable() {
+        ENABLED = false;
+    }
+
+    /**
+     * Check whether tasks are being profiled
+     *
+     * @return True if enabled
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Give a task a name to profile it under
+     * <p>Tasks with the same name are grouped together.</p>
+     *
+     * @param name     Name of task
+     * @param runnable Task to name
+     * @return Named task, to pass to {@link TaskUtils}
+     */
+    public static @NotNull Runnable named(@NotNull String name, @NotNull Runnable runnable) {
+        Preconditions.checkArgument(name != null, "Name cannot be null");
+        Preconditions.checkArgument(runnable != null, "Runnable cannot be null");
+        return new ProfiledRunnable(name, runnable);
+    }
+
+    /**
+     * Give a supplier a name to profile it under
+     * <p>Suppliers with the same name are grouped together.</p>
+     *
+     * @param name     Name of supplier
+     * @param supplier Supplier to name
+     * @param <T>      Type of value
+     * @return Named supplier, to pass to {@link TaskUtils}
+     */
+    public static <T> @NotNull Supplier<T> namedSupplier(@NotNull String name, @NotNull Supplier<T> supplier) {
+        Preconditions.checkArgument(name != null, "Name cannot be null");
+        Preconditions.checkArgument(supplier != null, "Supplier cannot be null");
+        return new ProfiledSupplier<>(name, supplier);
+    }
+
+    /**
+     * Get a snapshot of all recorded profiles
+     *
+     * @return Profiles sorted by total time, highest first
+     */
+    public static @NotNull List<TaskProfile> getSnapshot() {
+        List<TaskProfile> profiles = new ArrayList<>(SYNC.size() + ASYNC.size());
+        SYNC.values().forEach(stats -> profiles.add(stats.snapshot(false)));
+        ASYNC.values().forEach(stats -> profiles.add(stats.snapshot(true)));
+        profiles.sort(Comparator.comparingLong(TaskProfile::getTotalNanos).reversed());
+        return profiles;
+    }
+
+    /**
+     * Reset all recorded profiles
+     */
+    public static void reset() {
+        SYNC.values().forEach(Stats::reset);
+        ASYNC.values().forEach(Stats::reset);
+    }
+
+    /**
+     * Dump all recorded profiles to a file
+     * <p>The file is written as tab separated values, one task per line.</p>
+     *
+     * @param path Path of file to write to, will be overwritten
+     * @throws IOException If the file could not be written
+     */
+    public static void dump(@NotNull Path path) throws IOException {
+        Preconditions.checkArgument(path != null, "Path cannot be null");
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("# Task profiles " + Instant.now() + "\n");
+            writer.write("# Budget: " + (BUDGET_NANOS == Long.MAX_VALUE ? "none" : BUDGET_NANOS + "ns") + "\n");
+            writer.write("task\tthread\tcount\ttotal_ns\tavg_ns\tmax_ns\toverruns\n");
+            for (TaskProfile profile : getSnapshot()) {
+                writer.write(String.format("%s\t%s\t%d\t%d\t%.0f\t%d\t%d%n",
+                    profile.getName(), profile.isAsync() ? "async" : "sync", profile.getCount(), profile.getTotalNanos(),
+                    profile.getAverageNanos(), profile.getMaxNanos(), profile.getOverruns()));
+            }
+        }
+    }
+
+    /**
+     * Periodically dump all recorded profiles to a file
+     * <p>The file is written off the main thread, see {@link #dump(Path)}.
+     * Replaces a previously started dump.</p>
+     *
+     * @param path   Path of file to write to, will be overwritten every dump
+     * @param period Period in ticks between dumps
+     */
+    public static synchronized void startDump(@NotNull Path path, long period) {
+        Preconditions.checkArgument(path != null, "Path cannot be null");
+        Preconditions.checkArgument(period > 0, "Period must be greater than 0");
+        stopDump();
+        DUMP_TASK = Bukkit.getScheduler().runTaskTimerAsynchronously(TaskUtils.getPlugin(), () -> {
+            try {
+                dump(path);
+            } catch (IOException e) {
+                TaskUtils.getPlugin().getLogger().log(Level.WARNING, "Could not dump task profiles to " + path, e);
+            }
+        }, period, period);
+    }
+
+    /**
+     * Stop periodically dumping profiles
+     */
+    public static synchronized void stopDump() {
+        if (DUMP_TASK != null) {
+            DUMP_TASK.cancel();
+            DUMP_TASK = null;
+        }
+    }
+
+    static Runnable wrap(Runnable runnable) {
+        Preconditions.checkArgument(runnable != null, "Runnable cannot be null");
+        if (!ENABLED || runnable instanceof ProfiledRunnable) return runnable;
+        return new ProfiledRunnable(null, runnable);
+    }
+
+    static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        Preconditions.checkArgument(supplier != null, "Supplier cannot be null");
+        if (!ENABLED || supplier instanceof ProfiledSupplier) return supplier;
+        return new ProfiledSupplier<>(null, supplier);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T, R> Function<T, R> wrap(Function<? super T, ? extends R> function) {
+        Preconditions.checkArgument(function != null, "Function cannot be null");
+        // Only ever applied to a T and its result only read as an R
+        if (!ENABLED) return (Function<T, R>) function;
+        return new ProfiledFunction<>(function);
+    }
+
+    /**
+     * Recorded runs of a task
+     */
+    private static final class Stats {
+
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder overruns = new LongAdder();
+
+        private Stats(String name) {
+            this.name = name;
+        }
+
+        private void record(long nanos) {
+            this.count.increment();
+            this.totalNanos.add(nanos);
+            this.maxNanos.accumulate(nanos);
+            if (nanos > BUDGET_NANOS) this.overruns.increment();
+        }
+
+        private TaskProfile snapshot(boolean async) {
+            return new TaskProfile(this.name, async, this.count.sum(), this.totalNanos.sum(), this.maxNanos.get(), this.overruns.sum());
+        }
+
+        private void reset() {
+            this.count.reset();
+            this.totalNanos.reset();
+            this.maxNanos.reset();
+            this.overruns.reset();
+        }
+
+    }
+
+    /**
+     * Times runs of a wrapped task
+     * <p>Stats are looked up on the first recorded run and kept, reset only clears them.</p>
+     */
+    private abstract static class Probe {
+
+        private String name;
+        private Stats sync;
+        private Stats async;
+
+        private Probe(String name) {
+            this.name = name;
+        }
+
+        abstract Object task();
+
+        final void record(long start) {
+            long nanos = System.nanoTime() - start;
+            if (Bukkit.isPrimaryThread()) {
+                if (this.sync == null) this.sync = SYNC.computeIfAbsent(getName(), Stats::new);
+                this.sync.record(nanos);
+            } else {
+                if (this.async == null) this.async = ASYNC.computeIfAbsent(getName(), Stats::new);
+                this.async.record(nanos);
+            }
+        }
+
+        private String getName() {
+            if (this.name == null) this.name = CLASS_NAMES.get(task().getClass());
+            return this.name;
+        }
+
+    }
+
+    private static final class ProfiledRunnable extends Probe implements Runnable {
+
+        private final Runnable runnable;
+
+        private ProfiledRunnable(String name, Runnable runnable) {
+            super(name);
+            this.runnable = runnable;
+        }
+
+        @Override
+        Object task() {
+            return this.runnable;
+        }
+
+        @Override
+        public void run() {
+            if (!ENABLED) {
+                this.runnable.run();
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                this.runnable.run();
+            } finally {
+                record(start);
+            }
+        }
+
+    }
+
+    private static final class ProfiledSupplier<T> extends Probe implements Supplier<T> {
+
+        private final Supplier<T> supplier;
+
+        private ProfiledSupplier(String name, Supplier<T> supplier) {
+            super(name);
+            this.supplier = supplier;
+        }
+
+        @Override
+        Object task() {
+            return this.supplier;
+        }
+
+        @Override
+        public T get() {
+            if (!ENABLED) return this.supplier.get();
+            long start = System.nanoTime();
+            try {
+                return this.supplier.get();
+            } finally {
+                record(start);
+            }
+        }
+
+    }
+
+    private static final class ProfiledFunction<T, R> extends Probe implements Function<T, R> {
+
+        private final Function<? super T, ? extends R> function;
+
+        private ProfiledFunction(Function<? super T, ? extends R> function) {
+            super(null);
+            this.function = function;
+        }
+
+        @Override
+        Object task() {
+            return this.function;
+        }
+
+        @Override
+        public R apply(T t) {
+            if (!ENABLED) return this.function.apply(t);
+            long start = System.nanoTime();
+            try {
+                return this.function.apply(t);
+            } finally {
+                record(start);
+            }
+        }
+
+    }
+
+}
@@ -1,8 +1,19 @@
 package com.shanebeestudios.coreapi.util;
 
+import com.google.common.base.Preconditions;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitScheduler;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Shortcut methods for running tasks
@@ -14,7 +25,9 @@ public class TaskUtils {
     }
 
     private static Plugin PLUGIN;
+    private static MainThreadExecutor SYNC_EXECUTOR;
     private static final BukkitScheduler SCHEDULER = Bukkit.getScheduler();
+    private static final ExecutorService ASYNC_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
 
     /**
      * Initialize this util with a Plugin
@@ -26,6 +39,7 @@ public class TaskUtils {
             throw new IllegalStateException("Plugin is already initialized.");
         }
         PLUGIN = plugin;
+        SYNC_EXECUTOR = new MainThreadExecutor(plugin);
     }
 
     /**
@@ -54,7 +68,7 @@ public class TaskUtils {
      */
     public static void runTaskLater(Runnable runnable, long delay) {
         pluginCheck();
-        SCHEDULER.runTaskLater(PLUGIN, runnable, delay);
+        SCHEDULER.runTaskLater(PLUGIN, TaskProfiler.wrap(runnable), delay);
     }
 
     /**
@@ -65,7 +79,7 @@ public class TaskUtils {
      */
     public static void runTaskLaterAsynchronously(Runnable runnable, long delay) {
         pluginCheck();
-        SCHEDULER.runTaskLaterAsynchronously(PLUGIN, runnable, delay);
+        SCHEDULER.runTaskLaterAsynchronously(PLUGIN, TaskProfiler.wrap(runnable), delay);
     }
 
     /**
@@ -77,7 +91,7 @@ public class TaskUtils {
      */
     public static void runTaskTimer(Runnable runnable, long delay, long period) {
         pluginCheck();
-        SCHEDULER.runTaskTimer(PLUGIN, runnable, delay, period);
+        SCHEDULER.runTaskTimer(PLUGIN, TaskProfiler.wrap(runnable), delay, period);
     }
 
     /**
@@ -89,7 +103,342 @@ public class TaskUtils {
      */
     public static void runTaskTimerAsynchronously(Runnable runnable, long delay, long period) {
         pluginCheck();
-        SCHEDULER.runTaskTimerAsynchronously(PLUGIN, runnable, delay, period);
+        SCHEDULER.runTaskTimerAsynchronously(PLUGIN, TaskProfiler.wrap(runnable), delay, period);
+    }
+
+    /**
+     * Run a task timer which backs off while the server is under load
+     * <p>Meant for repeating tasks which don't have to run on time, such as refreshing holograms or saving data.
+     * While the average tick time is over the stretch threshold, periods of {@link TaskPriority#LOW low} priority tasks
+     * are stretched 4 times and of {@link TaskPriority#NORMAL normal} priority tasks 2 times.
+     * While it is over the skip threshold, runs of low priority tasks are skipped, normal priority periods are
+     * stretched 4 times and {@link TaskPriority#HIGH high} priority periods 2 times.
+     * Periods recover once the average tick time drops 5ms below a threshold, see {@link #setAdaptiveThresholds(double, double)}.</p>
+     *
+     * @param runnable Task to run
+     * @param delay    Delay in ticks before task runs
+     * @param period   Period in ticks how often task runs when the server is not under load
+     * @param priority Priority of task
+     * @return Handle to cancel the task and read its skipped and deferred runs
+     */
+    public static AdaptiveTask runAdaptiveTimer(Runnable runnable, long delay, long period, TaskPriority priority) {
+        return runAdaptiveTimer(runnable, delay, period, priority, false);
+    }
+
+    /**
+     * Run a task timer on a virtual thread which backs off while the server is under load
+     * <p>See {@link #runAdaptiveTimer(Runnable, long, long, TaskPriority)}.
+     * A run is deferred to the next tick while the previous run is still going.</p>
+     *
+     * @param runnable Task to run
+     * @param delay    Delay in ticks before task runs
+     * @param period   Period in ticks how often task runs when the server is not under load
+     * @param priority Priority of task
+     * @return Handle to cancel the task and read its skipped and deferred runs
+     */
+    public static AdaptiveTask runAdaptiveTimerAsynchronously(Runnable runnable, long delay, long period, TaskPriority priority) {
+        return runAdaptiveTimer(runnable, delay, period, priority, true);
+    }
+
+    private static AdaptiveTask runAdaptiveTimer(Runnable runnable, long delay, long period, TaskPriority priority, boolean async) {
+        Preconditions.checkArgument(runnable != null, "Runnable cannot be null");
+        Preconditions.checkArgument(period > 0, "Period must be greater than 0");
+        Preconditions.checkArgument(priority != null, "TaskPriority cannot be null");
+        pluginCheck();
+        return AdaptiveScheduler.schedule(PLUGIN, ASYNC_EXECUTOR, TaskProfiler.wrap(runnable), delay, period, priority, async);
+    }
+
+    /**
+     * Set the average tick times at which adaptive timers back off
+     * <p>Defaults to 40ms to stretch and 50ms to skip.</p>
+     *
+     * @param stretchMillis Average tick time in milliseconds at which periods are stretched
+     * @param skipMillis    Average tick time in milliseconds at which low priority runs are skipped
+     */
+    public static void setAdaptiveThresholds(double stretchMillis, double skipMillis) {
+        Preconditions.checkArgument(stretchMillis > 0, "Stretch threshold must be greater than 0");
+        Preconditions.checkArgument(skipMillis >= stretchMillis, "Skip threshold cannot be lower than stretch threshold");
+        AdaptiveScheduler.setThresholds(stretchMillis, skipMillis);
+    }
+
+    /**
+     * Schedule a task to run later
+     * <p>Unlike {@link #runTaskLater(Runnable, long)} this does not create a scheduler task,
+     * all tasks scheduled this way are kept in a timing wheel advanced by a single scheduler task.
+     * Scheduling and cancelling take constant time, which makes this suited for large amounts of tasks,
+     * such as a timeout for every player or entity.</p>
+     * <p>Can be called from any thread, tasks scheduled off the main thread are counted from the next tick.</p>
+     *
+     * @param runnable Task to run on the main thread
+     * @param delay    Delay in ticks before task runs
+     * @return Handle to cancel the task
+     */
+    public static DelayedTask scheduleLater(Runnable runnable, long delay) {
+        Preconditions.checkArgument(runnable != null, "Runnable cannot be null");
+        pluginCheck();
+        return TimingWheel.schedule(PLUGIN, ASYNC_EXECUTOR, TaskProfiler.wrap(runnable), delay, false);
+    }
+
+    /**
+     * Schedule a task to run later on a virtual thread
+     * <p>See {@link #scheduleLater(Runnable, long)}, the task is handed to a virtual thread once its delay passed.</p>
+     *
+     * @param runnable Task to run on a virtual thread
+     * @param delay    Delay in ticks before task runs
+     * @return Handle to cancel the task
+     */
+    public static DelayedTask scheduleLaterAsynchronously(Runnable runnable, long delay) {
+        Preconditions.checkArgument(runnable != null, "Runnable cannot be null");
+        pluginCheck();
+        return TimingWheel.schedule(PLUGIN, ASYNC_EXECUTOR, TaskProfiler.wrap(runnable), delay, true);
+    }
+
+    /**
+     * Debounce a task by key
+     * <p>The task runs on the main thread once no task was submitted for the same key within the delay.
+     * Every submission for a pending key moves its run back and replaces the task to run,
+     * so a burst of submissions results in a single run of the latest task.</p>
+     * <p>Keys are shared by all keyed methods, a submission for a pending key keeps the way that key was first submitted.
+     * Can be called from any thread.</p>
+     *
+     * @param key      Key of task, such as the UUID of a player combined with what the task does
+     * @param delay    Ticks without submissions before the task runs, 0 runs on the next tick
+     * @param runnable Task to run
+     * @return True if a new run was scheduled, false if the submission was merged into a pending run
+     */
+    public static boolean debounce(Object key, long delay, Runnable runnable) {
+        return submitKeyed(key, delay, runnable, true, false);
+    }
+
+    /**
+     * Debounce a task by key, running it on a virtual thread
+     * <p>See {@link #debounce(Object, long, Runnable)}.</p>
+     *
+     * @param key      Key of task, such as the UUID of a player combined with what the task does
+     * @param delay    Ticks without submissions before the task runs, 0 runs on the next tick
+     * @param runnable Task to run
+     * @return True if a new run was scheduled, false if the submission was merged into a pending run
+     */
+    public static boolean debounceAsynchronously(Object key, long delay, Runnable runnable) {
+        return submitKeyed(key, delay, runnable, true, true);
+    }
+
+    /**
+     * Throttle a task by key
+     * <p>The first submission for a key schedules a run on the main thread after the delay.
+     * Submissions until then only replace the task to run, so the key runs at most once per delay.
+     * A delay of 0 collapses all submissions within a tick into a single run on the next tick.</p>
+     * <p>Keys are shared by all keyed methods, a submission for a pending key keeps the way that key was first submitted.
+     * Can be called from any thread.</p>
+     *
+     * @param key      Key of task, such as the UUID of a player combined with what the task does
+     * @param delay    Ticks before the task runs
+     * @param runnable Task to run
+     * @return True if a new run was scheduled, false if the submission was merged into a pending run
+     */
+    public static boolean throttle(Object key, long delay, Runnable runnable) {
+        return submitKeyed(key, delay, runnable, false, false);
+    }
+
+    /**
+     * Throttle a task by key, running it on a virtual thread
+     * <p>See {@link #throttle(Object, long, Runnable)}.</p>
+     *
+     * @param key      Key of task, such as the UUID of a player combined with what the task does
+     * @param delay    Ticks before the task runs
+     * @param runnable Task to run
+     * @return True if a new run was scheduled, false if the submission was merged into a pending run
+     */
+    public static boolean throttleAsynchronously(Object key, long delay, Runnable runnable) {
+        return submitKeyed(key, delay, runnable, false, true);
+    }
+
+    private static boolean submitKeyed(Object key, long delay, Runnable runnable, boolean debounce, boolean async) {
+        Preconditions.checkArgument(key != null, "Key cannot be null");
+        Preconditions.checkArgument(runnable != null, "Runnable cannot be null");
+        pluginCheck();
+        return KeyedTasks.submit(PLUGIN, ASYNC_EXECUTOR, key, TaskProfiler.wrap(runnable), delay, debounce, async);
+    }
+
+    /**
+     * Cancel the pending run of a keyed task
+     *
+     * @param key Key of task
+     * @return True if a run was pending
+     */
+    public static boolean cancelKeyed(Object key) {
+        Preconditions.checkArgument(key != null, "Key cannot be null");
+        return KeyedTasks.cancel(key);
+    }
+
+    /**
+     * Check whether a keyed task has a pending run
+     *
+     * @param key Key of task
+     * @return True if a run is pending
+     */
+    public static boolean isKeyedPending(Object key) {
+        Preconditions.checkArgument(key != null, "Key cannot be null");
+        return KeyedTasks.isPending(key);
+    }
+
+    /**
+     * Get the amount of keyed submissions merged into a pending run, rather than running on their own
+     *
+     * @return Amount of merged submissions
+     */
+    public static long getCoalescedSubmissions() {
+        return KeyedTasks.getCoalesced();
+    }
+
+    /**
+     * Reset the amount of merged keyed submissions
+     */
+    public static void resetCoalescedSubmissions() {
+        KeyedTasks.resetCoalesced();
+    }
+
+    /**
+     * Get an executor which runs tasks on the main thread
+     * <p>All tasks given to this executor within a tick are run together by a single scheduler task on the next tick.</p>
+     *
+     * @return Main thread executor
+     */
+    public static Executor getSyncExecutor() {
+        pluginCheck();
+        return SYNC_EXECUTOR;
+    }
+
+    /**
+     * Get an executor which runs each task on a new virtual thread
+     * <p>Blocking in these tasks, such as waiting on a database, does not hold up a platform thread.</p>
+     *
+     * @return Async executor
+     */
+    public static Executor getAsyncExecutor() {
+        return ASYNC_EXECUTOR;
+    }
+
+    /**
+     * Supply a value on a virtual thread
+     *
+     * @param supplier Supplier of value
+     * @param <T>      Type of value
+     * @return Future completed with the value
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(TaskProfiler.wrap(supplier), ASYNC_EXECUTOR);
+    }
+
+    /**
+     * Run a task on a virtual thread
+     *
+     * @param runnable Task to run
+     * @return Future completed once the task ran
+     */
+    public static CompletableFuture<Void> runAsync(Runnable runnable) {
+        return CompletableFuture.runAsync(TaskProfiler.wrap(runnable), ASYNC_EXECUTOR);
+    }
+
+    /**
+     * Supply a value on the main thread
+     * <p>The supplier runs on the next tick, together with all other main thread tasks of this util.</p>
+     *
+     * @param supplier Supplier of value
+     * @param <T>      Type of value
+     * @return Future completed with the value
+     */
+    public static <T> CompletableFuture<T> supplySync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(TaskProfiler.wrap(supplier), getSyncExecutor());
+    }
+
+    /**
+     * Run a task on the main thread
+     * <p>The task runs on the next tick, together with all other main thread tasks of this util.</p>
+     *
+     * @param runnable Task to run
+     * @return Future completed once the task ran
+     */
+    public static CompletableFuture<Void> runSync(Runnable runnable) {
+        return CompletableFuture.runAsync(TaskProfiler.wrap(runnable), getSyncExecutor());
+    }
+
+    /**
+     * Continue a future on the main thread
+     *
+     * @param future   Future to continue
+     * @param function Function applied to the result of the future on the main thread
+     * @param <T>      Type of result
+     * @param <R>      Type of new result
+     * @return Future completed with the result of the function
+     */
+    public static <T, R> CompletableFuture<R> thenSync(CompletableFuture<T> future, Function<? super T, ? extends R> function) {
+        return future.thenApplyAsync(TaskProfiler.wrap(function), getSyncExecutor());
+    }
+
+    /**
+     * Continue a future on a virtual thread
+     *
+     * @param future   Future to continue
+     * @param function Function applied to the result of the future on a virtual thread
+     * @param <T>      Type of result
+     * @param <R>      Type of new result
+     * @return Future completed with the result of the function
+     */
+    public static <T, R> CompletableFuture<R> thenAsync(CompletableFuture<T> future, Function<? super T, ? extends R> function) {
+        return future.thenApplyAsync(TaskProfiler.wrap(function), ASYNC_EXECUTOR);
+    }
+
+    /**
+     * Submit work to be run on the main thread in small units
+     * <p>Units are run every tick until the work budget of that tick is used up, see {@link #setWorkBudget(double)}.</p>
+     *
+     * @param units Units of work to run, in order
+     * @return Future completed once all units have run, cancelling it stops the remaining units
+     */
+    public static CompletableFuture<Void> submitWork(Collection<? extends Runnable> units) {
+        return submitWork(units, TaskPriority.NORMAL, null);
+    }
+
+    /**
+     * Submit work to be run on the main thread in small units
+     * <p>Units are run every tick until the work budget of that tick is used up, see {@link #setWorkBudget(double)}.
+     * Work of a higher priority runs first, work of the same priority in order of submission.
+     * If a unit throws an exception, the remaining units are skipped and the future completes exceptionally.</p>
+     *
+     * @param units    Units of work to run, in order
+     * @param priority Priority of work
+     * @param progress Called after each tick units ran with the amount of units done and the total amount, may be null
+     * @return Future completed once all units have run, cancelling it stops the remaining units
+     */
+    public static CompletableFuture<Void> submitWork(Collection<? extends Runnable> units, TaskPriority priority,
+                                                     @Nullable BiConsumer<Integer, Integer> progress) {
+        Preconditions.checkArgument(units != null, "Units cannot be null");
+        Preconditions.checkArgument(priority != null, "TaskPriority cannot be null");
+        pluginCheck();
+        Runnable[] wrapped = new Runnable[units.size()];
+        int i = 0;
+        for (Runnable unit : units) {
+            wrapped[i++] = TaskProfiler.wrap(unit);
+        }
+        return WorkQueue.submit(PLUGIN, wrapped, priority, progress);
+    }
+
+    /**
+     * Set the time submitted work may use every tick
+     * <p>The budget shrinks as the average tick time gets closer to 50ms, so work doesn't push the server over.
+     * Defaults to 5ms.</p>
+     *
+     * @param millis Budget in milliseconds
+     */
+    public static void setWorkBudget(double millis) {
+        Preconditions.checkArgument(millis > 0, "Budget must be greater than 0");
+        WorkQueue.setBudget(millis);
+    }
+
+    static Plugin getPlugin() {
+        pluginCheck();
+        return PLUGIN;
     }
 
     private static void pluginCheck() {
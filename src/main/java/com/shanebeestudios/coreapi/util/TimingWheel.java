@@ -0,0 +1,184 @@
+package com.shanebeestudios.coreapi.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+
+/**
+ * Hierarchical timing wheel of {@link DelayedTask delayed tasks}, advanced by a single scheduler task every tick
+ * <p>The first level has a slot for each of the next 256 ticks, each further level has 64 slots
+ * each covering a whole turn of the level below it. When a level completes a turn, the next slot of the level above
+ * is spread out over the levels below, so scheduling and cancelling are constant time.</p>
+ * <p>Tasks scheduled off the main thread are handed over through a queue and placed on the next tick.
+ * Tasks cancelled off the main thread, or by a task due in the same tick, stay in their slot and are dropped when it is reached.</p>
+ */
+final class TimingWheel {
+
+    private static final int FIRST_BITS = 8;
+    private static final int LEVEL_BITS = 6;
+    private static final int FIRST_SIZE = 1 << FIRST_BITS;
+    private static final int LEVEL_SIZE = 1 << LEVEL_BITS;
+    private static final int LEVELS = 5;
+    // Longest delay the wheel can hold, longer delays are clamped
+    private static final long MAX_DELAY = (1L << (FIRST_BITS + (LEVELS - 1) * LEVEL_BITS)) - 1;
+
+    private static final Slot[][] WHEEL = createWheel();
+    private static final Queue<DelayedTask> INBOX = new ConcurrentLinkedQueue<>();
+    private static volatile long TICK = 0;
+    private static volatile Plugin PLUGIN;
+    private static Executor ASYNC_EXECUTOR;
+
+    private TimingWheel() {
+    }
+
+    private static Slot[][] createWheel() {
+        Slot[][] wheel = new Slot[LEVELS][];
+        for (int level = 0; level < LEVELS; level++) {
+            wheel[level] = new Slot[level == 0 ? FIRST_SIZE : LEVEL_SIZE];
+            for (int i = 0; i < wheel[level].length; i++) {
+                wheel[level][i] = new Slot();
+            }
+        }
+        return wheel;
+    }
+
+    static long getTick() {
+        return TICK;
+    }
+
+    private static synchronized void start(Plugin plugin, Executor asyncExecutor) {
+        if (PLUGIN != null) return;
+        ASYNC_EXECUTOR = asyncExecutor;
+        Bukkit.getScheduler().runTaskTimer(plugin, TimingWheel::advance, 1, 1);
+        PLUGIN = plugin;
+    }
+
+    static DelayedTask schedule(Plugin plugin, Executor asyncExecutor, Runnable runnable, long delay, boolean async) {
+        if (PLUGIN == null) start(plugin, asyncExecutor);
+        // Same as the scheduler, a delay of 0 runs on the next tick
+        long ticks = Math.min(MAX_DELAY, Math.max(1, delay));
+        DelayedTask task = new DelayedTask(runnable, async, ticks);
+        // Deadline is relative until the task is placed
+        if (Bukkit.isPrimaryThread()) {
+            task.deadline = TICK + ticks;
+            insert(task);
+        } else {
+            INBOX.add(task);
+        }
+        return task;
+    }
+
+    static void cancelled(DelayedTask task) {
+        if (Bukkit.isPrimaryThread() && task.slot != null) unlink(task);
+    }
+
+    private static void insert(DelayedTask task) {
+        long deadline = task.deadline;
+        long delta = deadline - TICK;
+        Slot slot;
+        if (delta < FIRST_SIZE) {
+            slot = WHEEL[0][(int) (deadline & (FIRST_SIZE - 1))];
+        } else {
+            int level = 1;
+            int shift = FIRST_BITS;
+            while (level < LEVELS - 1 && delta >= 1L << (shift + LEVEL_BITS)) {
+                level++;
+                shift += LEVEL_BITS;
+            }
+            slot = WHEEL[level][(int) ((deadline >> shift) & (LEVEL_SIZE - 1))];
+        }
+        task.slot = slot;
+        task.previous = null;
+        task.next = slot.head;
+        if (slot.head != null) slot.head.previous = task;
+        slot.head = task;
+    }
+
+    private static void unlink(DelayedTask task) {
+        Slot slot = task.slot;
+        if (task.previous != null) task.previous.next = task.next;
+        else slot.head = task.next;
+        if (task.next != null) task.next.previous = task.previous;
+        task.previous = null;
+        task.next = null;
+        task.slot = null;
+    }
+
+    private static void advance() {
+        long tick = TICK + 1;
+        TICK = tick;
+        DelayedTask submitted;
+        while ((submitted = INBOX.poll()) != null) {
+            if (submitted.isCancelled()) continue;
+            // Counted from the tick it was scheduled in
+            submitted.deadline += tick - 1;
+            insert(submitted);
+        }
+
+        // Spread out the next slot of each level whose lower level completed a turn
+        int shift = FIRST_BITS;
+        for (int level = 1; level < LEVELS; level++) {
+            if ((tick & ((1L << shift) - 1)) != 0) break;
+            cascade(WHEEL[level][(int) ((tick >> shift) & (LEVEL_SIZE - 1))]);
+            shift += LEVEL_BITS;
+        }
+
+        Slot slot = WHEEL[0][(int) (tick & (FIRST_SIZE - 1))];
+        DelayedTask head = slot.head;
+        slot.head = null;
+        // Detach the whole list before running anything, a task cancelling a later one must not unlink it from under us
+        for (DelayedTask task = head; task != null; task = task.next) {
+            task.previous = null;
+            task.slot = null;
+        }
+        DelayedTask task = head;
+        while (task != null) {
+            DelayedTask next = task.next;
+            task.next = null;
+            if (task.markDone()) run(task);
+            task = next;
+        }
+    }
+
+    private static void cascade(Slot slot) {
+        DelayedTask task = slot.head;
+        slot.head = null;
+        while (task != null) {
+            DelayedTask next = task.next;
+            if (task.isCancelled()) {
+                task.previous = null;
+                task.next = null;
+                task.slot = null;
+            } else {
+                insert(task);
+            }
+            task = next;
+        }
+    }
+
+    private static void run(DelayedTask task) {
+        if (task.async) {
+            ASYNC_EXECUTOR.execute(task.runnable);
+            return;
+        }
+        try {
+            task.runnable.run();
+        } catch (Throwable throwable) {
+            PLUGIN.getLogger().log(Level.SEVERE, "Could not run delayed task", throwable);
+        }
+    }
+
+    /**
+     * Head of a list of tasks due in the same slot
+     */
+    static final class Slot {
+
+        private DelayedTask head;
+
+    }
+
+}
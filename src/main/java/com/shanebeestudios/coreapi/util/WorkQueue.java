@@ -0,0 +1,137 @@
+package com.shanebeestudios.coreapi.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+
+/**
+ * Queue of work drained on the main thread every tick within a time budget
+ * <p>Jobs are submitted from any thread into an inbox, everything else only happens on the main thread.
+ * Higher priority jobs are drained first, jobs of the same priority in order of submission.</p>
+ */
+final class WorkQueue {
+
+    // Tick length the server aims for
+    private static final double TICK_MILLIS = 50;
+    // Budget used when the server is already over its tick length, so work still progresses
+    private static final double MIN_BUDGET_MILLIS = 0.5;
+
+    private static volatile double BUDGET_MILLIS = 5;
+    private static final Queue<Job> INBOX = new ConcurrentLinkedQueue<>();
+    private static final ArrayDeque<Job>[] JOBS = createQueues();
+    private static boolean STARTED = false;
+
+    private WorkQueue() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<Job>[] createQueues() {
+        ArrayDeque<Job>[] queues = new ArrayDeque[TaskPriority.values().length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+        return queues;
+    }
+
+    static void setBudget(double millis) {
+        BUDGET_MILLIS = millis;
+    }
+
+    static synchronized CompletableFuture<Void> submit(Plugin plugin, Runnable[] units, TaskPriority priority,
+                                                      BiConsumer<Integer, Integer> progress) {
+        Job job = new Job(units, priority, progress);
+        if (units.length == 0) {
+            job.future.complete(null);
+            return job.future;
+        }
+        INBOX.add(job);
+        if (!STARTED) {
+            STARTED = true;
+            Bukkit.getScheduler().runTaskTimer(plugin, WorkQueue::drain, 0, 1);
+        }
+        return job.future;
+    }
+
+    /**
+     * Budget for this tick, shrinking as the average tick time gets closer to the tick length
+     */
+    static double getEffectiveBudget() {
+        double budget = BUDGET_MILLIS;
+        double headroom = TICK_MILLIS - Bukkit.getAverageTickTime();
+        return Math.max(MIN_BUDGET_MILLIS, Math.min(budget, headroom));
+    }
+
+    private static void drain() {
+        Job submitted;
+        while ((submitted = INBOX.poll()) != null) {
+            JOBS[submitted.priority.ordinal()].add(submitted);
+        }
+        long deadline = System.nanoTime() + (long) (getEffectiveBudget() * 1_000_000);
+        boolean ran = false;
+        for (int i = JOBS.length - 1; i >= 0; i--) {
+            ArrayDeque<Job> jobs = JOBS[i];
+            while (!jobs.isEmpty()) {
+                // At least one unit runs every tick, even if the budget is smaller than a unit
+                if (ran && System.nanoTime() >= deadline) return;
+                ran = true;
+                Job job = jobs.peek();
+                boolean done = job.run(deadline);
+                if (!done) return;
+                jobs.poll();
+            }
+        }
+    }
+
+    private static final class Job {
+
+        private final Runnable[] units;
+        private final TaskPriority priority;
+        private final BiConsumer<Integer, Integer> progress;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private int index;
+
+        private Job(Runnable[] units, TaskPriority priority, BiConsumer<Integer, Integer> progress) {
+            this.units = units;
+            this.priority = priority;
+            this.progress = progress;
+        }
+
+        /**
+         * Run units until the job is done or the deadline passed
+         *
+         * @return True if the job is done
+         */
+        private boolean run(long deadline) {
+            // Cancelled through its future
+            if (this.future.isDone()) return true;
+            int start = this.index;
+            try {
+                do {
+                    this.units[this.index].run();
+                    this.units[this.index++] = null;
+                } while (this.index < this.units.length && System.nanoTime() < deadline);
+            } catch (Throwable throwable) {
+                this.future.completeExceptionally(throwable);
+                return true;
+            }
+            if (this.progress != null && this.index != start) {
+                try {
+                    this.progress.accept(this.index, this.units.length);
+                } catch (Throwable throwable) {
+                    Bukkit.getLogger().log(Level.SEVERE, "Could not pass work progress", throwable);
+                }
+            }
+            if (this.index < this.units.length) return false;
+            this.future.complete(null);
+            return true;
+        }
+
+    }
+
+}